@@ -0,0 +1,125 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskFields;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.DefaultReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.relational.core.query.Criteria;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The cpu bound steps of serving a task listing at realistic page sizes: building the filter
+ * criteria and mapping them to sql, mapping rows to {@link TaskDto}, projecting sparse fieldsets
+ * and serializing the page with Jackson. The redis value round trip is covered by
+ * {@code TaskCacheCodecBenchmark}. Run with {@code ./gradlew jmh}; the gc profiler reports the
+ * allocation rate next to the throughput.
+ *
+ * @author Denis Gitonga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskListingBenchmark {
+
+    @Param({"20", "100", "1000"})
+    int size;
+
+    private FilterTaskDto filter;
+
+    private StatementMapper statementMapper;
+
+    private List<Task> tasks;
+
+    private List<TaskDto> taskDtos;
+
+    private TaskFields fields;
+
+    private PageImpl<TaskDto> page;
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        final var today = LocalDate.now();
+        // an id filter as long as the page, the other predicates are fixed in number
+        filter = new FilterTaskDto("task 1", null, null, today, today.plusDays(size), null,
+                IntStream.range(0, size).mapToObj(index -> UUID.randomUUID()).toList());
+        statementMapper = new DefaultReactiveDataAccessStrategy(PostgresDialect.INSTANCE)
+                .getStatementMapper()
+                .forType(Task.class);
+
+        final var now = Instant.now();
+        tasks = IntStream.range(0, size)
+                .mapToObj(index -> new Task(
+                        UUID.randomUUID(),
+                        "task " + index,
+                        "a description of task " + index + " long enough to look like a real one",
+                        today.plusDays(index),
+                        now,
+                        now,
+                        1))
+                .toList();
+        taskDtos = tasks.stream().map(TaskDto::of).toList();
+        fields = TaskFields.of("title,dueDate");
+        page = new PageImpl<>(taskDtos, PageRequest.of(0, size, Sort.by("dueDate", "id")), size * 10L);
+
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public Criteria criteria() {
+        return filter.criteria();
+    }
+
+    @Benchmark
+    public String criteriaToSql() {
+        final var select = statementMapper.createSelect("tasks.tasks")
+                .withProjection(TaskFields.ALL.columns())
+                .withCriteria(filter.criteria())
+                .withSort(Sort.by("dueDate", "id"))
+                .withPage(PageRequest.of(0, size));
+        return statementMapper.getMappedObject(select).toQuery();
+    }
+
+    @Benchmark
+    public List<TaskDto> mapTasks() {
+        return tasks.stream().map(TaskDto::of).toList();
+    }
+
+    @Benchmark
+    public List<TaskDto> projectTasks() {
+        return taskDtos.stream().map(fields::project).toList();
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
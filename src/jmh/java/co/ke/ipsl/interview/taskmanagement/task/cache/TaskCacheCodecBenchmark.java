@@ -0,0 +1,113 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Encodes and decodes a cached task page with the json serializer and with
+ * {@link TaskCacheCodec}, separately and as the round trip of a cache write then read. Run with
+ * {@code ./gradlew jmh}; the gc profiler reports allocation per operation and the {@code *Size}
+ * benchmarks return the payload size in bytes.
+ *
+ * @author Denis Gitonga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskCacheCodecBenchmark {
+
+    @Param({"20", "100", "1000"})
+    int size;
+
+    private RedisSerializer<Object> json;
+
+    private RedisSerializer<Object> binary;
+
+    private PageImpl<TaskDto> page;
+
+    private byte[] jsonBytes;
+
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        final var objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        json = new GenericJackson2JsonRedisSerializer(objectMapper);
+        binary = new TaskCacheCodec(json);
+
+        final var tasks = IntStream.range(0, size)
+                .mapToObj(index -> new TaskDto(
+                        UUID.randomUUID(),
+                        "task " + index,
+                        "a description of task " + index + " long enough to look like a real one",
+                        LocalDate.now().plusDays(index),
+                        1))
+                .toList();
+        page = new PageImpl<>(tasks, PageRequest.of(0, size, Sort.by("dueDate")), size * 10L);
+
+        jsonBytes = json.serialize(page);
+        binaryBytes = binary.serialize(page);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return json.serialize(page);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public int jsonSize() {
+        return jsonBytes.length;
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binary.serialize(page);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    @Benchmark
+    public Object jsonRoundTrip() {
+        return json.deserialize(json.serialize(page));
+    }
+
+    @Benchmark
+    public Object binaryRoundTrip() {
+        return binary.deserialize(binary.serialize(page));
+    }
+
+    @Benchmark
+    public int binarySize() {
+        return binaryBytes.length;
+    }
+}
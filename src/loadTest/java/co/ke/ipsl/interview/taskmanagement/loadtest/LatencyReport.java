@@ -0,0 +1,81 @@
+package co.ke.ipsl.interview.taskmanagement.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per operation, recorded in microseconds from concurrent
+ * workers and reported as throughput and p50/p99/p999 latency.
+ *
+ * @author Denis Gitonga
+ */
+class LatencyReport {
+
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+    private final Map<String, LongAdder> errors = new ConcurrentSkipListMap<>();
+
+    void record(String operation, long nanos, boolean success) {
+        histograms.computeIfAbsent(operation, key -> new ConcurrentHistogram(3))
+                .recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        if (!success) {
+            errors.computeIfAbsent(operation, key -> new LongAdder()).increment();
+        }
+    }
+
+    long requests() {
+        return histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    long errors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    String format(Duration elapsed, int concurrency) {
+        final var total = new Histogram(3);
+        histograms.values().forEach(total::add);
+
+        final var report = new StringBuilder()
+                .append("concurrency ").append(concurrency)
+                .append(", measured for ").append(elapsed.toMillis()).append(" ms")
+                .append(System.lineSeparator())
+                .append(String.format("%-16s %10s %10s %8s %10s %10s %10s %10s%n",
+                        "operation", "requests", "rps", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        histograms.forEach((operation, histogram) -> line(report, operation, histogram, elapsed,
+                errors.getOrDefault(operation, new LongAdder()).sum()));
+        line(report, "total", total, elapsed, errors());
+        return report.toString();
+    }
+
+    void write(Path file, Duration elapsed, int concurrency) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, format(elapsed, concurrency));
+    }
+
+    private static void line(StringBuilder report, String operation, Histogram histogram, Duration elapsed, long errors) {
+        report.append(String.format("%-16s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                operation,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() * 1000.0 / Math.max(1, elapsed.toMillis()),
+                errors,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
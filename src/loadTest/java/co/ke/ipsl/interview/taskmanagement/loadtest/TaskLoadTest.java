@@ -0,0 +1,254 @@
+package co.ke.ipsl.interview.taskmanagement.loadtest;
+
+import co.ke.ipsl.interview.taskmanagement.security.AccessTokenService;
+import co.ke.ipsl.interview.taskmanagement.task.dto.CreateTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.UpdateTaskDto;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Drives a mixed read/write workload over http against the application running on an embedded
+ * postgres and an embedded redis, so it runs on any linux box without docker. Tuned with system
+ * properties, forwarded by {@code ./gradlew loadTest -Dloadtest.concurrency=64}:
+ * <ul>
+ *     <li>{@code loadtest.concurrency} requests in flight, 32 by default</li>
+ *     <li>{@code loadtest.warmup} and {@code loadtest.duration}, 10s and 30s by default</li>
+ *     <li>{@code loadtest.write-ratio} share of requests that create or update, 0.1 by default</li>
+ *     <li>{@code loadtest.tasks} tasks seeded before measuring, 1000 by default</li>
+ *     <li>{@code loadtest.report} report file, {@code build/reports/loadtest/report.txt} by default</li>
+ * </ul>
+ *
+ * @author Denis Gitonga
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TaskLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskLoadTest.class);
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s"));
+
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+
+    private static final double WRITE_RATIO = Double.parseDouble(System.getProperty("loadtest.write-ratio", "0.1"));
+
+    private static final int TASKS = Integer.getInteger("loadtest.tasks", 1000);
+
+    private static final Path REPORT = Path.of(System.getProperty("loadtest.report", "build/reports/loadtest/report.txt"));
+
+    private static EmbeddedPostgres postgres;
+
+    private static RedisServer redis;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    private final List<UUID> taskIds = new CopyOnWriteArrayList<>();
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        final var redisPort = freePort();
+        redis = new RedisServer(redisPort);
+        redis.start();
+
+        // R2DBC
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres");
+        registry.add("spring.r2dbc.username", () -> "postgres");
+        registry.add("spring.r2dbc.password", () -> "postgres");
+        registry.add("spring.r2dbc.pool.max-size", () -> Math.max(10, CONCURRENCY / 2));
+
+        // LIQUIBASE
+        registry.add("spring.liquibase.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.liquibase.user", () -> "postgres");
+        registry.add("spring.liquibase.password", () -> "postgres");
+
+        // REDIS
+        registry.add("spring.data.redis.host", () -> "localhost");
+        registry.add("spring.data.redis.port", () -> redisPort);
+    }
+
+    @AfterAll
+    static void stopStores() throws IOException {
+        if (redis != null) {
+            redis.stop();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    @DisplayName("should sustain a mixed read/write workload")
+    void mixedWorkload() throws IOException {
+        final var token = accessTokenService.issue(UsernamePasswordAuthenticationToken.authenticated(
+                        "load-test", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")))
+                .block()
+                .accessToken();
+        final var connectionProvider = ConnectionProvider.builder("load-test")
+                .maxConnections(CONCURRENCY)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        final var client = WebClient.builder()
+                .baseUrl("http://localhost:" + port + "/api")
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .defaultHeaders(headers -> headers.setBearerAuth(token))
+                .build();
+
+        try {
+            seed(client);
+
+            log.info("Warming up for {} at concurrency {}", WARMUP, CONCURRENCY);
+            run(client, WARMUP, new LatencyReport());
+
+            log.info("Measuring for {} at concurrency {}", DURATION, CONCURRENCY);
+            final var report = new LatencyReport();
+            final var elapsed = run(client, DURATION, report);
+
+            report.write(REPORT, elapsed, CONCURRENCY);
+            log.info("Load test report, also written to {}{}{}",
+                    REPORT.toAbsolutePath(), System.lineSeparator(), report.format(elapsed, CONCURRENCY));
+
+            assertThat(report.requests()).isPositive();
+            assertThat(report.errors()).isZero();
+        } finally {
+            connectionProvider.dispose();
+        }
+    }
+
+    private void seed(WebClient client) {
+        Flux.range(0, (TASKS + 999) / 1000)
+                .concatMap(batch -> client.post()
+                        .uri("/tasks/batch")
+                        .contentType(APPLICATION_JSON)
+                        .bodyValue(IntStream.range(batch * 1000, Math.min(TASKS, (batch + 1) * 1000))
+                                .mapToObj(index -> newTask())
+                                .toList())
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<List<SeededTask>>() {
+                        }))
+                .flatMapIterable(results -> results)
+                .filter(result -> result.task() != null)
+                .doOnNext(result -> taskIds.add(result.task().id()))
+                .blockLast();
+        log.info("Seeded {} tasks", taskIds.size());
+    }
+
+    private Duration run(WebClient client, Duration duration, LatencyReport report) {
+        final var start = System.nanoTime();
+        final var deadline = start + duration.toNanos();
+
+        Flux.range(0, CONCURRENCY)
+                .flatMap(worker -> Mono.defer(() -> request(client, report))
+                        .repeat(() -> System.nanoTime() < deadline), CONCURRENCY)
+                .blockLast();
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private Mono<Boolean> request(WebClient client, LatencyReport report) {
+        final var random = ThreadLocalRandom.current();
+        final String operation;
+        final WebClient.RequestHeadersSpec<?> request;
+
+        if (random.nextDouble() < WRITE_RATIO) {
+            if (random.nextBoolean()) {
+                operation = "create";
+                request = client.post()
+                        .uri("/tasks")
+                        .contentType(APPLICATION_JSON)
+                        .bodyValue(newTask());
+            } else {
+                operation = "update";
+                final var task = newTask();
+                request = client.put()
+                        .uri("/tasks/{taskId}", taskIds.get(random.nextInt(taskIds.size())))
+                        .contentType(APPLICATION_JSON)
+                        .bodyValue(new UpdateTaskDto(task.title(), task.description(), task.dueDate()));
+            }
+        } else if (random.nextInt(4) == 0) {
+            operation = "list-due-range";
+            final var from = LocalDate.now().plusDays(random.nextInt(30));
+            request = client.get()
+                    .uri(uri -> uri.path("/tasks")
+                            .queryParam("dueFrom", from)
+                            .queryParam("dueTo", from.plusDays(7))
+                            .queryParam("count", "none")
+                            .build());
+        } else {
+            operation = "list";
+            request = client.get()
+                    .uri(uri -> uri.path("/tasks")
+                            .queryParam("page", random.nextInt(Math.max(1, TASKS / 20)))
+                            .queryParam("size", 20)
+                            .build());
+        }
+
+        final var start = System.nanoTime();
+        return request
+                .exchangeToMono(response -> response.releaseBody()
+                        .thenReturn(response.statusCode().is2xxSuccessful()))
+                .onErrorReturn(false)
+                .doOnNext(success -> report.record(operation, System.nanoTime() - start, success));
+    }
+
+    private static CreateTaskDto newTask() {
+        final var random = ThreadLocalRandom.current();
+        return new CreateTaskDto(
+                "load test " + UUID.randomUUID(),
+                "a description long enough to look like a real one, task " + random.nextInt(),
+                LocalDate.now().plusDays(1 + random.nextInt(60)));
+    }
+
+    private static int freePort() {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The part of a batch create result the load test needs.
+     */
+    record SeededTask(TaskDto task) {
+    }
+}
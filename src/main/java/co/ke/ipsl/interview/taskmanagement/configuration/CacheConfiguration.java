@@ -1,14 +1,31 @@
 package co.ke.ipsl.interview.taskmanagement.configuration;
 
+import co.ke.ipsl.interview.taskmanagement.task.cache.CacheInvalidationBus;
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCacheCodec;
+import co.ke.ipsl.interview.taskmanagement.task.cache.TwoTierCacheManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
-import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 
+import static co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache.TASKS;
+import static co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache.TASK_COUNTS;
+import static co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache.TASK_RESPONSES;
 import static org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair.fromSerializer;
 
 /**
@@ -16,14 +33,77 @@ import static org.springframework.data.redis.serializer.RedisSerializationContex
  */
 @EnableCaching
 @Configuration
+@EnableConfigurationProperties({CacheProperties.class, TaskCacheProperties.class})
 public class CacheConfiguration {
 
     @Bean
-    RedisCacheConfiguration redisCacheConfiguration(ObjectMapper objectMapper) {
+    RedisCacheConfiguration redisCacheConfiguration(ObjectMapper objectMapper, TaskCacheProperties properties) {
+        final RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer(objectMapper);
+        final var serializer = switch (properties.codec()) {
+            case JSON -> json;
+            case BINARY -> new TaskCacheCodec(json);
+        };
+
         return RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(5))
+                .entryTtl(properties.ttl())
                 .disableCachingNullValues()
-                .serializeValuesWith(
-                        fromSerializer(new GenericJackson2JsonRedisSerializer(objectMapper)));
+                .serializeValuesWith(fromSerializer(serializer));
+    }
+
+    @Bean
+    CacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            RedisCacheConfiguration redisCacheConfiguration,
+            CacheProperties cacheProperties,
+            TaskCacheProperties properties,
+            CacheInvalidationBus invalidationBus
+    ) {
+        final var builder = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(redisCacheConfiguration)
+                // created upfront so that their statistics are bound as meters at startup
+                .initialCacheNames(Set.of(TASKS, TASK_COUNTS))
+                .withCacheConfiguration(TASK_RESPONSES, redisCacheConfiguration
+                        .serializeValuesWith(fromSerializer(RedisSerializer.byteArray())));
+        if (cacheProperties.getRedis().isEnableStatistics()) {
+            builder.enableStatistics();
+        }
+        final var redisCacheManager = builder.build();
+        redisCacheManager.initializeCaches();
+
+        if (!properties.near().enabled()) {
+            return redisCacheManager;
+        }
+        return new TwoTierCacheManager(
+                redisCacheManager,
+                properties.near().maximumSize().toBytes(),
+                properties.ttl(),
+                invalidationBus,
+                List.of(TASKS, TASK_COUNTS, TASK_RESPONSES));
+    }
+
+    @Bean
+    MeterBinder twoTierCacheMetrics(CacheManager cacheManager) {
+        return registry -> {
+            if (cacheManager instanceof TwoTierCacheManager twoTierCacheManager) {
+                twoTierCacheManager.bindTo(registry);
+            }
+        };
+    }
+
+    /**
+     * Records redis command latencies with histograms, for quantiles aggregated across nodes.
+     */
+    @Bean
+    MicrometerOptions micrometerOptions() {
+        return MicrometerOptions.builder()
+                .histogram(true)
+                .build();
+    }
+
+    @Bean
+    ReactiveRedisMessageListenerContainer reactiveRedisMessageListenerContainer(
+            ReactiveRedisConnectionFactory connectionFactory
+    ) {
+        return new ReactiveRedisMessageListenerContainer(connectionFactory);
     }
 }
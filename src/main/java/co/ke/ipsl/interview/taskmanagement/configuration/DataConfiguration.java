@@ -1,6 +1,23 @@
 package co.ke.ipsl.interview.taskmanagement.configuration;
 
+import co.ke.ipsl.interview.taskmanagement.database.ReadYourWritesWebFilter;
+import co.ke.ipsl.interview.taskmanagement.database.RoutingConnectionFactory;
+import co.ke.ipsl.interview.taskmanagement.database.TimedConnectionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 
@@ -10,5 +27,82 @@ import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 @Configuration
 @EnableR2dbcAuditing
 @EnableR2dbcRepositories
+@EnableConfigurationProperties({TaskWriteProperties.class, TaskDatabaseProperties.class, TaskChangeProperties.class})
 public class DataConfiguration {
+
+    @Bean
+    static BeanPostProcessor timedConnectionFactoryPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionPool connectionPool) {
+                    final var registry = meterRegistry.getIfAvailable();
+                    if (registry != null) {
+                        return new TimedConnectionFactory(connectionPool, registry, beanName);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    ReadYourWritesWebFilter readYourWritesWebFilter(TaskDatabaseProperties properties) {
+        return new ReadYourWritesWebFilter(properties);
+    }
+
+    /**
+     * Replaces the auto-configured pool with a primary and a replica pool behind a
+     * {@link RoutingConnectionFactory}, once a replica is configured. Both can be databases of
+     * one local server to try it out.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "task-management.database.replica", name = "url")
+    @EnableConfigurationProperties(R2dbcProperties.class)
+    static class ReplicaConfiguration {
+
+        @Bean(destroyMethod = "dispose")
+        ConnectionPool primaryConnectionFactory(R2dbcProperties properties) {
+            final var connectionFactory = ConnectionFactoryBuilder.withUrl(properties.getUrl())
+                    .username(properties.getUsername())
+                    .password(properties.getPassword())
+                    .build();
+            final var pool = properties.getPool();
+            final var builder = ConnectionPoolConfiguration.builder(connectionFactory)
+                    .name("primary")
+                    .initialSize(pool.getInitialSize())
+                    .maxSize(pool.getMaxSize());
+            final var map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+            map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+            map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+            map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+            map.from(pool.getValidationQuery()).to(builder::validationQuery);
+            return new ConnectionPool(builder.build());
+        }
+
+        @Bean(destroyMethod = "dispose")
+        ConnectionPool replicaConnectionFactory(TaskDatabaseProperties properties) {
+            final var replica = properties.replica();
+            final var connectionFactory = ConnectionFactoryBuilder.withUrl(replica.url())
+                    .username(replica.username())
+                    .password(replica.password())
+                    .build();
+            return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                    .name("replica")
+                    .maxSize(replica.maxSize())
+                    .maxAcquireTime(replica.acquireTimeout())
+                    .build());
+        }
+
+        @Bean
+        @Primary
+        ConnectionFactory connectionFactory(
+                @Qualifier("primaryConnectionFactory") ConnectionFactory primary,
+                @Qualifier("replicaConnectionFactory") ConnectionFactory replica,
+                TaskDatabaseProperties properties,
+                MeterRegistry meterRegistry
+        ) {
+            return new RoutingConnectionFactory(primary, replica, properties.replica().downFor(), meterRegistry);
+        }
+    }
 }
@@ -1,19 +1,38 @@
 package co.ke.ipsl.interview.taskmanagement.configuration;
 
+import co.ke.ipsl.interview.taskmanagement.security.AccessTokenService;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity.CsrfSpec;
 import org.springframework.security.config.web.server.ServerHttpSecurity.FormLoginSpec;
-import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
-import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -24,19 +43,44 @@ import static org.springframework.security.config.Customizer.withDefaults;
 @Configuration
 @EnableWebFluxSecurity
 @EnableReactiveMethodSecurity
+@EnableConfigurationProperties(TaskSecurityProperties.class)
 public class SecurityConfiguration {
 
+    private final Logger log = LoggerFactory.getLogger(SecurityConfiguration.class);
+
+    /**
+     * The token exchange accepts basic credentials only, bearer tokens are not even decoded there.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityWebFilterChain accessTokenFilterChain(ServerHttpSecurity http) {
+        return http
+                .securityMatcher(ServerWebExchangeMatchers.pathMatchers("/api/auth/token", "/auth/token"))
+                .cors(withDefaults())
+                .csrf(CsrfSpec::disable)
+                .authorizeExchange(exchange -> exchange
+                        .anyExchange().authenticated())
+                .formLogin(FormLoginSpec::disable)
+                .httpBasic(withDefaults())
+                .build();
+    }
+
     @Bean
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
         return http
                 .cors(withDefaults())
                 .csrf(CsrfSpec::disable)
                 .authorizeExchange(exchange -> exchange
-                        .pathMatchers(GET, "/api/tasks", "/tasks").permitAll()
+                        .pathMatchers(GET, "/api/tasks", "/tasks", "/api/tasks/changes", "/tasks/changes").permitAll()
+                        // metrics are scraped with credentials like any other call
+                        .pathMatchers(GET, "/api/actuator/health/**", "/actuator/health/**").permitAll()
                         // permit all requests
                         .anyExchange().authenticated())
                 .formLogin(FormLoginSpec::disable)
+                // basic credentials are exchanged at /auth/token for a bearer token
                 .httpBasic(withDefaults())
+                .oauth2ResourceServer(resourceServer -> resourceServer
+                        .jwt(jwt -> jwt.jwtAuthenticationConverter(accessTokenAuthenticationConverter())))
                 .build();
     }
 
@@ -45,4 +89,46 @@ public class SecurityConfiguration {
     PasswordEncoder passwordEncoder() {
         return PasswordEncoderFactories.createDelegatingPasswordEncoder();
     }
+
+    @Bean
+    SecretKey accessTokenKey(TaskSecurityProperties properties) {
+        final var secret = properties.token().secret();
+        if (!StringUtils.hasText(secret)) {
+            log.warn("No task-management.security.token.secret set, access tokens are signed with a random key " +
+                    "and will not be accepted by other nodes or after a restart");
+            final var random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return new SecretKeySpec(random, "HmacSHA256");
+        }
+
+        final var bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("task-management.security.token.secret must be at least 32 bytes");
+        }
+        return new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    @Bean
+    JwtEncoder jwtEncoder(SecretKey accessTokenKey) {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(accessTokenKey));
+    }
+
+    @Bean
+    ReactiveJwtDecoder jwtDecoder(SecretKey accessTokenKey, TaskSecurityProperties properties) {
+        final var decoder = NimbusReactiveJwtDecoder.withSecretKey(accessTokenKey)
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(properties.token().issuer()));
+        return decoder;
+    }
+
+    private static ReactiveJwtAuthenticationConverterAdapter accessTokenAuthenticationConverter() {
+        final var authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName(AccessTokenService.ROLES_CLAIM);
+        authoritiesConverter.setAuthorityPrefix(AccessTokenService.ROLE_PREFIX);
+
+        final var authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return new ReactiveJwtAuthenticationConverterAdapter(authenticationConverter);
+    }
 }
@@ -0,0 +1,99 @@
+package co.ke.ipsl.interview.taskmanagement.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @param ttl           time to live of cached task listings
+ * @param generationTtl how long a node trusts cache generations read from redis without having
+ *                      seen an invalidation message, zero to always read them from redis
+ * @param near          in-process tier in front of redis
+ * @param codec         encoding of values stored in redis
+ * @param warming       background refresh of the most requested listings
+ * @author Denis Gitonga
+ */
+@ConfigurationProperties(prefix = "task-management.cache")
+public record TaskCacheProperties(
+        @DefaultValue("5m")
+        Duration ttl,
+
+        @DefaultValue("1s")
+        Duration generationTtl,
+
+        @DefaultValue
+        Near near,
+
+        @DefaultValue("binary")
+        Codec codec,
+
+        @DefaultValue
+        Warming warming
+) {
+
+    public enum Codec {
+        /**
+         * Jackson, as read by {@code GenericJackson2JsonRedisSerializer}.
+         */
+        JSON,
+        /**
+         * {@link co.ke.ipsl.interview.taskmanagement.task.cache.TaskCacheCodec}, falling back to
+         * json for values it does not know.
+         */
+        BINARY
+    }
+
+    /**
+     * @param enabled     whether to keep an in-process copy of cached values
+     * @param maximumSize estimated heap held by the in-process copies, per cache
+     */
+    public record Near(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("64MB")
+            DataSize maximumSize
+    ) {
+    }
+
+    /**
+     * @param enabled        whether hot listings are recomputed ahead of being requested
+     * @param trackedKeys    listings whose request frequency is tracked
+     * @param hotKeys        most requested of the tracked listings kept warm
+     * @param refreshAhead   how long before their TTL runs out hot listings are recomputed
+     * @param delay          how long after an invalidation hot listings are recomputed, letting
+     *                       bursts of writes settle into one refresh
+     * @param concurrency    listings recomputed at once, each holding a connection
+     * @param startupDueDays days from today whose due date listings are loaded at startup, next
+     *                       to the unfiltered listing
+     * @param startupTimeout how long startup waits for those listings before reporting ready
+     */
+    public record Warming(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("1000")
+            int trackedKeys,
+
+            @DefaultValue("50")
+            int hotKeys,
+
+            @DefaultValue("30s")
+            Duration refreshAhead,
+
+            @DefaultValue("100ms")
+            Duration delay,
+
+            @DefaultValue("2")
+            int concurrency,
+
+            @DefaultValue("7")
+            int startupDueDays,
+
+            @DefaultValue("30s")
+            Duration startupTimeout
+    ) {
+    }
+}
@@ -0,0 +1,26 @@
+package co.ke.ipsl.interview.taskmanagement.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param buffer    changes held for a subscriber reading slower than tasks are written. Once
+ *                  exceeded they are dropped and the subscriber is sent a resync instead
+ * @param heartbeat how often an idle stream is sent a comment, keeping proxies from closing it
+ * @param linger    how long the database is still listened to after the last subscriber left
+ * @author Denis Gitonga
+ */
+@ConfigurationProperties(prefix = "task-management.changes")
+public record TaskChangeProperties(
+        @DefaultValue("256")
+        int buffer,
+
+        @DefaultValue("15s")
+        Duration heartbeat,
+
+        @DefaultValue("30s")
+        Duration linger
+) {
+}
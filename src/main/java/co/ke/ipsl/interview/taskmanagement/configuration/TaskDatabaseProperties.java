@@ -0,0 +1,60 @@
+package co.ke.ipsl.interview.taskmanagement.configuration;
+
+import jakarta.annotation.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param replica           read replica serving read only work: streamed listings, single tasks,
+ *                          and the listings and users cached once it caught up with the primary
+ * @param readYourWrites    how long a client that wrote keeps reading from the primary, so that
+ *                          it sees its write whatever the replication lag. Zero disables pinning
+ * @param streamIdleTimeout how long a streamed listing may wait for its client to read on, a
+ *                          client stalling longer has the stream cut off and its connection
+ *                          released. Streams reading steadily run for as long as they need
+ * @author Denis Gitonga
+ */
+@ConfigurationProperties(prefix = "task-management.database")
+public record TaskDatabaseProperties(
+        @DefaultValue
+        Replica replica,
+
+        @DefaultValue("5s")
+        Duration readYourWrites,
+
+        @DefaultValue("30s")
+        Duration streamIdleTimeout
+) {
+
+    /**
+     * @param url            r2dbc url of the replica, reads go to the primary when missing
+     * @param username       login username of the replica
+     * @param password       login password of the replica
+     * @param maxSize        maximum size of the replica connection pool
+     * @param acquireTimeout how long to wait for a replica connection before reading from the
+     *                       primary instead
+     * @param downFor        how long reads stay on the primary once the replica failed
+     */
+    public record Replica(
+            @Nullable
+            String url,
+
+            @Nullable
+            String username,
+
+            @Nullable
+            String password,
+
+            @DefaultValue("10")
+            int maxSize,
+
+            @DefaultValue("1s")
+            Duration acquireTimeout,
+
+            @DefaultValue("10s")
+            Duration downFor
+    ) {
+    }
+}
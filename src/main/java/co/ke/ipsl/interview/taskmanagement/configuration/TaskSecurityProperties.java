@@ -0,0 +1,80 @@
+package co.ke.ipsl.interview.taskmanagement.configuration;
+
+import jakarta.annotation.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param userCache     in-process cache of user details looked up during authentication
+ * @param passwordCheck password hash verification, kept off the event loop
+ * @param token         access tokens exchanged for credentials at {@code /auth/token}
+ * @author Denis Gitonga
+ */
+@ConfigurationProperties(prefix = "task-management.security")
+public record TaskSecurityProperties(
+        @DefaultValue
+        UserCache userCache,
+
+        @DefaultValue
+        PasswordCheck passwordCheck,
+
+        @DefaultValue
+        Token token
+) {
+
+    /**
+     * @param ttl         how long a user is trusted without reading it again, bounding staleness
+     *                    should a change notification be lost
+     * @param maximumSize maximum number of cached users
+     */
+    public record UserCache(
+            @DefaultValue("5m")
+            Duration ttl,
+
+            @DefaultValue("10000")
+            long maximumSize
+    ) {
+    }
+
+    /**
+     * @param threads             threads verifying password hashes
+     * @param queueCapacity       checks allowed to wait for a thread, any beyond it are rejected
+     * @param verifiedTtl         how long a successfully verified credential skips verification
+     * @param verifiedMaximumSize maximum number of remembered verified credentials
+     */
+    public record PasswordCheck(
+            @DefaultValue("4")
+            int threads,
+
+            @DefaultValue("256")
+            int queueCapacity,
+
+            @DefaultValue("1m")
+            Duration verifiedTtl,
+
+            @DefaultValue("10000")
+            long verifiedMaximumSize
+    ) {
+    }
+
+    /**
+     * @param secret HMAC key signing the tokens, at least 32 bytes. Shared by every node, a random
+     *               one is generated when missing so that tokens only hold on the node and run
+     *               that issued them
+     * @param issuer issuer the tokens are signed as and checked against
+     * @param ttl    how long a token is valid
+     */
+    public record Token(
+            @Nullable
+            String secret,
+
+            @DefaultValue("task-management")
+            String issuer,
+
+            @DefaultValue("15m")
+            Duration ttl
+    ) {
+    }
+}
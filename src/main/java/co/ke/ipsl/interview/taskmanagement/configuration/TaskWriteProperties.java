@@ -0,0 +1,33 @@
+package co.ke.ipsl.interview.taskmanagement.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled     whether task writes arriving close together share a transaction
+ * @param window      how long the first write of a batch waits for others to join it
+ * @param maxBatch    writes per batch, a full batch runs without waiting out the window
+ * @param concurrency batches running at once, each holding a connection
+ * @param maxPending  writes waiting for a batch, further writes are rejected until they drain
+ * @author Denis Gitonga
+ */
+@ConfigurationProperties(prefix = "task-management.write-batching")
+public record TaskWriteProperties(
+        @DefaultValue("false")
+        boolean enabled,
+
+        @DefaultValue("5ms")
+        Duration window,
+
+        @DefaultValue("64")
+        int maxBatch,
+
+        @DefaultValue("4")
+        int concurrency,
+
+        @DefaultValue("1024")
+        int maxPending
+) {
+}
@@ -3,16 +3,31 @@ package co.ke.ipsl.interview.taskmanagement.configuration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
 import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
 
 /**
  * @author Denis Gitonga
  */
 @Configuration
-public class WebConfig {
+public class WebConfig implements WebFluxConfigurer {
 
     @Bean
     HandlerMethodArgumentResolver reactivePageableHandlerMethodArgumentResolver() {
         return new ReactivePageableHandlerMethodArgumentResolver();
     }
+
+    @Bean
+    HandlerMethodArgumentResolver reactiveSortHandlerMethodArgumentResolver() {
+        return new ReactiveSortHandlerMethodArgumentResolver();
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(
+                reactivePageableHandlerMethodArgumentResolver(),
+                reactiveSortHandlerMethodArgumentResolver());
+    }
 }
@@ -0,0 +1,106 @@
+package co.ke.ipsl.interview.taskmanagement.database;
+
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * Postgres {@code LISTEN}/{@code NOTIFY} subscriptions. Each subscription holds a connection of
+ * its own to the primary for as long as it lasts and reconnects with backoff when the connection
+ * is lost.
+ * <p>
+ * Those connections are opened outside of the connection pools: a listener would hold a pool
+ * slot for good, and once back in the pool its connection would still be listening.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class PostgresNotifications {
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final Logger log = LoggerFactory.getLogger(PostgresNotifications.class);
+
+    private final PostgresqlConnectionFactory connectionFactory;
+
+    public PostgresNotifications(R2dbcProperties properties) {
+        final var options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (properties.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (properties.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        // created by the postgres driver directly, whether the url asks for a pool or not
+        this.connectionFactory = new PostgresqlConnectionFactoryProvider().create(options.build());
+    }
+
+    /**
+     * Notifications sent on {@code channel}. Every time listening (re)starts a
+     * {@link Message#resync() resync} message is emitted first, since notifications sent while
+     * not listening are lost.
+     */
+    public Flux<Message> listen(String channel) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel name " + channel);
+        }
+
+        return Flux.usingWhen(
+                        connectionFactory.create(),
+                        connection -> {
+                            // subscribed to before LISTEN so that nothing sent after it is missed
+                            final var notifications = connection.getNotifications()
+                                    .map(notification -> new Message(channel, notification.getParameter()));
+                            final var listening = connection.createStatement("LISTEN " + channel)
+                                    .execute()
+                                    .flatMap(PostgresqlResult::getRowsUpdated)
+                                    .then(Mono.just(new Message(channel, null)));
+                            return Flux.merge(notifications, listening);
+                        },
+                        connection -> close(connection, channel),
+                        (connection, error) -> close(connection, channel),
+                        connection -> close(connection, channel))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Listening on {} failed, reconnecting",
+                                channel, signal.failure())));
+    }
+
+    /**
+     * Stops listening before closing, the connection being lost already when that fails.
+     */
+    private static Mono<Void> close(PostgresqlConnection connection, String channel) {
+        return connection.createStatement("UNLISTEN " + channel)
+                .execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then()
+                .onErrorResume(error -> Mono.empty())
+                .then(connection.close());
+    }
+
+    /**
+     * @param payload the notification payload, null for a resync
+     */
+    public record Message(String channel, @Nullable String payload) {
+
+        /**
+         * Whether notifications may have been missed before this message.
+         */
+        public boolean resync() {
+            return payload == null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package co.ke.ipsl.interview.taskmanagement.database;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.function.Function;
+
+/**
+ * Reactor context markers read by {@link RoutingConnectionFactory}. Work marked
+ * {@link #readOnly() read only} may run on the replica, unless the caller was
+ * {@link #pinToPrimary() pinned to the primary}, as after having just written.
+ *
+ * @author Denis Gitonga
+ */
+public final class ReadRouting {
+
+    static final String READ_ONLY = ReadRouting.class.getName() + ".READ_ONLY";
+
+    static final String PINNED = ReadRouting.class.getName() + ".PINNED";
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Marks the work upstream of {@code contextWrite} as not writing, nor needing to see a write
+     * that may not have reached the replica yet.
+     */
+    public static Function<Context, Context> readOnly() {
+        return context -> context.put(READ_ONLY, true);
+    }
+
+    /**
+     * Keeps the work upstream of {@code contextWrite} on the primary, read only or not.
+     */
+    public static Function<Context, Context> pinToPrimary() {
+        return context -> context.put(PINNED, true);
+    }
+
+    static boolean onReplica(ContextView context) {
+        return context.getOrDefault(READ_ONLY, false) && !context.getOrDefault(PINNED, false);
+    }
+}
@@ -0,0 +1,75 @@
+package co.ke.ipsl.interview.taskmanagement.database;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskDatabaseProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Pins a client to the primary for {@link TaskDatabaseProperties#readYourWrites()} after it
+ * writes, so that it reads its own writes whatever the replication lag. The deadline travels in a
+ * cookie, which keeps any node serving the client's next requests aware of it.
+ *
+ * @author Denis Gitonga
+ */
+public class ReadYourWritesWebFilter implements WebFilter {
+
+    static final String COOKIE = "primary-until";
+
+    private static final Set<HttpMethod> WRITES = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final Duration pin;
+
+    public ReadYourWritesWebFilter(TaskDatabaseProperties properties) {
+        this.pin = properties.readYourWrites();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (pin.isZero() || pin.isNegative()) {
+            return chain.filter(exchange);
+        }
+
+        final var now = System.currentTimeMillis();
+        final var write = WRITES.contains(exchange.getRequest().getMethod());
+        if (write) {
+            exchange.getResponse().beforeCommit(() -> {
+                final var status = exchange.getResponse().getStatusCode();
+                if (status == null || status.is2xxSuccessful()) {
+                    exchange.getResponse().addCookie(ResponseCookie.from(COOKIE, Long.toString(now + pin.toMillis()))
+                            .maxAge(pin)
+                            .path("/")
+                            .httpOnly(true)
+                            .sameSite("Lax")
+                            .build());
+                }
+                return Mono.empty();
+            });
+        }
+
+        if (write || pinned(exchange, now)) {
+            return chain.filter(exchange).contextWrite(ReadRouting.pinToPrimary());
+        }
+        return chain.filter(exchange);
+    }
+
+    private boolean pinned(ServerWebExchange exchange, long now) {
+        final var cookie = exchange.getRequest().getCookies().getFirst(COOKIE);
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            final var until = Long.parseLong(cookie.getValue());
+            // a deadline further out than a write could have set is not honoured
+            return until > now && until <= now + pin.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
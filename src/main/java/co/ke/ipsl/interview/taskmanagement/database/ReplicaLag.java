@@ -0,0 +1,55 @@
+package co.ke.ipsl.interview.taskmanagement.database;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskDatabaseProperties;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.function.Function;
+
+/**
+ * Tells whether the replica has caught up with the primary, for reads whose result outlives
+ * them, such as those filling a cache: a replica lagging behind a write would have the stale
+ * result cached, and served, as if it were current.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class ReplicaLag {
+
+    private final DatabaseClient client;
+
+    private final boolean replicated;
+
+    public ReplicaLag(DatabaseClient client, TaskDatabaseProperties properties) {
+        this.client = client;
+        this.replicated = properties.replica().url() != null;
+    }
+
+    /**
+     * Marks the work upstream of {@code contextWrite} {@link ReadRouting#readOnly() read only} if
+     * the replica has replayed every write the primary made before this was subscribed to, and
+     * {@link ReadRouting#pinToPrimary() pins it to the primary} otherwise. A caller already pinned
+     * stays on the primary without asking either.
+     */
+    public Mono<Function<Context, Context>> routing() {
+        return Mono.deferContextual(context -> {
+            if (!replicated || context.getOrDefault(ReadRouting.PINNED, false)) {
+                return Mono.just(ReadRouting.readOnly());
+            }
+
+            return client.sql("select pg_current_wal_lsn()::text")
+                    .mapValue(String.class)
+                    .one()
+                    .contextWrite(ReadRouting.pinToPrimary())
+                    // not a standby, or the replica is down and this ran on the primary
+                    .flatMap(lsn -> client.sql("select coalesce(pg_last_wal_replay_lsn() >= cast(:lsn as pg_lsn), true)")
+                            .bind("lsn", lsn)
+                            .mapValue(Boolean.class)
+                            .one()
+                            .contextWrite(ReadRouting.readOnly()))
+                    .map(caughtUp -> caughtUp ? ReadRouting.readOnly() : ReadRouting.pinToPrimary());
+        });
+    }
+}
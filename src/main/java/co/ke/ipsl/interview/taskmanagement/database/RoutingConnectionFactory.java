@@ -0,0 +1,89 @@
+package co.ke.ipsl.interview.taskmanagement.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Hands out replica connections to {@link ReadRouting#readOnly() read only} work and primary
+ * connections to everything else, transactions included since they begin outside of any read
+ * only marker. When no replica connection can be obtained the primary is used instead, and the
+ * replica is left alone for {@code replicaDownFor} before being tried again.
+ *
+ * @author Denis Gitonga
+ */
+public class RoutingConnectionFactory implements ConnectionFactory {
+
+    private final Logger log = LoggerFactory.getLogger(RoutingConnectionFactory.class);
+
+    private final ConnectionFactory primary;
+
+    private final ConnectionFactory replica;
+
+    private final Duration replicaDownFor;
+
+    private final Counter primaryConnections;
+
+    private final Counter replicaConnections;
+
+    private final Counter fallbackConnections;
+
+    private volatile long replicaDownUntil;
+
+    public RoutingConnectionFactory(
+            ConnectionFactory primary,
+            ConnectionFactory replica,
+            Duration replicaDownFor,
+            MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaDownFor = replicaDownFor;
+        this.primaryConnections = counter(meterRegistry, "primary");
+        this.replicaConnections = counter(meterRegistry, "replica");
+        this.fallbackConnections = counter(meterRegistry, "fallback");
+        this.replicaDownUntil = System.nanoTime();
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(context -> {
+            if (!ReadRouting.onReplica(context)) {
+                primaryConnections.increment();
+                return Mono.from(primary.create());
+            }
+            if (System.nanoTime() - replicaDownUntil < 0) {
+                fallbackConnections.increment();
+                return Mono.from(primary.create());
+            }
+
+            return Mono.<Connection>from(replica.create())
+                    .doOnSuccess(connection -> replicaConnections.increment())
+                    .onErrorResume(error -> {
+                        log.warn("No replica connection, reading from the primary for {}", replicaDownFor, error);
+                        replicaDownUntil = System.nanoTime() + replicaDownFor.toNanos();
+                        fallbackConnections.increment();
+                        return Mono.from(primary.create());
+                    });
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return primary.getMetadata();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("r2dbc.routing.connections")
+                .description("Connections handed out per target")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,72 @@
+package co.ke.ipsl.interview.taskmanagement.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records how long obtaining a connection takes into {@code r2dbc.pool.acquire}, which for a
+ * pool includes waiting for a connection to be released. The pool gauges themselves are bound
+ * by Spring Boot, which unwraps this factory to find the pool. Disposing it disposes the pool.
+ *
+ * @author Denis Gitonga
+ */
+public class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+    private final ConnectionFactory delegate;
+
+    private final MeterRegistry registry;
+
+    private final String name;
+
+    public TimedConnectionFactory(ConnectionFactory delegate, MeterRegistry registry, String name) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.name = name;
+    }
+
+    @Override
+    public Mono<? extends Connection> create() {
+        return Mono.defer(() -> {
+            final var sample = Timer.start(registry);
+            return Mono.from(delegate.create())
+                    .doOnSuccess(connection -> sample.stop(timer("success")))
+                    .doOnError(error -> sample.stop(timer("error")));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    @Override
+    public void dispose() {
+        if (delegate instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return delegate instanceof Disposable disposable && disposable.isDisposed();
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder("r2dbc.pool.acquire")
+                .description("Time taken to obtain a connection")
+                .tags("name", name, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,28 @@
+package co.ke.ipsl.interview.taskmanagement.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Exchanges credentials, presented once with basic authentication, for a bearer access token.
+ *
+ * @author Denis Gitonga
+ */
+@RestController
+@RequestMapping("/auth")
+public class AccessTokenController {
+
+    private final AccessTokenService accessTokenService;
+
+    public AccessTokenController(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @PostMapping("/token")
+    Mono<AccessTokenDto> issueToken(Authentication authentication) {
+        return accessTokenService.issue(authentication);
+    }
+}
@@ -0,0 +1,21 @@
+package co.ke.ipsl.interview.taskmanagement.security;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Access token response, named as in RFC 6749.
+ *
+ * @param expiresIn seconds until the token expires
+ * @author Denis Gitonga
+ */
+public record AccessTokenDto(
+        @JsonProperty("access_token")
+        String accessToken,
+
+        @JsonProperty("token_type")
+        String tokenType,
+
+        @JsonProperty("expires_in")
+        long expiresIn
+) {
+}
@@ -0,0 +1,68 @@
+package co.ke.ipsl.interview.taskmanagement.security;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskSecurityProperties;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Issues self-contained HMAC signed JWTs carrying the user's roles, so that requests bearing
+ * them are authenticated without looking the user up or hashing a password.
+ *
+ * @author Denis Gitonga
+ */
+@Service
+public class AccessTokenService {
+
+    public static final String ROLES_CLAIM = "roles";
+
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    private final JwtEncoder jwtEncoder;
+
+    private final TaskSecurityProperties.Token properties;
+
+    public AccessTokenService(JwtEncoder jwtEncoder, TaskSecurityProperties properties) {
+        this.jwtEncoder = jwtEncoder;
+        this.properties = properties.token();
+    }
+
+    /**
+     * Issues a token for {@code authentication}, which must not be an access token itself: a
+     * token renewed from the previous one would outlive the credentials it was issued for.
+     */
+    public Mono<AccessTokenDto> issue(Authentication authentication) {
+        if (authentication instanceof JwtAuthenticationToken) {
+            return Mono.error(new AccessDeniedException("Access tokens are only issued for credentials"));
+        }
+
+        return Mono.fromSupplier(() -> {
+            final var issuedAt = Instant.now();
+            final var claims = JwtClaimsSet.builder()
+                    .issuer(properties.issuer())
+                    .subject(authentication.getName())
+                    .issuedAt(issuedAt)
+                    .expiresAt(issuedAt.plus(properties.ttl()))
+                    .claim(ROLES_CLAIM, authentication.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                            .map(authority -> authority.substring(ROLE_PREFIX.length()))
+                            .toList())
+                    .build();
+            final var header = JwsHeader.with(MacAlgorithm.HS256).build();
+
+            final var jwt = jwtEncoder.encode(JwtEncoderParameters.from(header, claims));
+            return new AccessTokenDto(jwt.getTokenValue(), "Bearer", properties.ttl().toSeconds());
+        });
+    }
+}
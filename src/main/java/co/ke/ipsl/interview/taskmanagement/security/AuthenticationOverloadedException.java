@@ -0,0 +1,17 @@
+package co.ke.ipsl.interview.taskmanagement.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Too many password checks are already waiting, the client should retry later.
+ *
+ * @author Denis Gitonga
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class AuthenticationOverloadedException extends RuntimeException {
+
+    public AuthenticationOverloadedException(Throwable cause) {
+        super("Authentication is overloaded", cause);
+    }
+}
@@ -0,0 +1,169 @@
+package co.ke.ipsl.interview.taskmanagement.security;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskSecurityProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authenticates username and password credentials without hashing on the event loop. Hash
+ * checks run on a dedicated bounded scheduler whose queue is capped, an authentication that
+ * cannot be queued failing with {@link AuthenticationOverloadedException} rather than piling up.
+ * <p>
+ * Credentials that verified recently are remembered under an HMAC of username and password, with
+ * a key that only lives in this process, along with the hash they verified against. A repeat of
+ * them is trusted without hashing for as long as the user's stored hash is unchanged.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class PasswordAuthenticationManager implements ReactiveAuthenticationManager, MeterBinder, DisposableBean {
+
+    private static final String HMAC = "HmacSHA256";
+
+    private final ReactiveUserDetailsService userDetailsService;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final Scheduler scheduler;
+
+    private final SecretKeySpec key;
+
+    /**
+     * HMAC of the credentials to the password hash they were verified against.
+     */
+    private final Cache<String, String> verified;
+
+    private final UserDetailsChecker userDetailsChecker = new AccountStatusUserDetailsChecker();
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder checkNanos = new LongAdder();
+
+    private final LongAdder verifiedHits = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    public PasswordAuthenticationManager(
+            ReactiveUserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            TaskSecurityProperties properties
+    ) {
+        final var passwordCheck = properties.passwordCheck();
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+        this.scheduler = Schedulers.newBoundedElastic(
+                passwordCheck.threads(), passwordCheck.queueCapacity(), "password-check");
+        this.verified = Caffeine.newBuilder()
+                .expireAfterWrite(passwordCheck.verifiedTtl())
+                .maximumSize(passwordCheck.verifiedMaximumSize())
+                .build();
+
+        final var secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC);
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        final var username = authentication.getName();
+        final var password = (String) authentication.getCredentials();
+        final var credentials = hmac(username, password);
+
+        return userDetailsService.findByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new BadCredentialsException("Invalid Credentials")))
+                .flatMap(user -> {
+                    if (user.getPassword().equals(verified.getIfPresent(credentials))) {
+                        verifiedHits.increment();
+                        return Mono.just(user);
+                    }
+                    return check(credentials, password, user);
+                })
+                .doOnNext(userDetailsChecker::check)
+                .map(user -> UsernamePasswordAuthenticationToken.authenticated(
+                        user, user.getPassword(), user.getAuthorities()));
+    }
+
+    private Mono<UserDetails> check(String credentials, String password, UserDetails user) {
+        return Mono.fromCallable(() -> {
+                    final var start = System.nanoTime();
+                    try {
+                        return passwordEncoder.matches(password, user.getPassword());
+                    } finally {
+                        checkNanos.add(System.nanoTime() - start);
+                        checks.increment();
+                    }
+                })
+                .subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> {
+                    rejections.increment();
+                    return new AuthenticationOverloadedException(e);
+                })
+                .flatMap(matches -> {
+                    if (!matches) {
+                        return Mono.error(new BadCredentialsException("Invalid Credentials"));
+                    }
+                    verified.put(credentials, user.getPassword());
+                    return Mono.just(user);
+                });
+    }
+
+    private String hmac(String username, String password) {
+        try {
+            final var mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            // separates username from password so that the pair cannot be shifted around it
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC + " is not available", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("auth.password.checks", this,
+                        manager -> manager.checks.sum(), manager -> manager.checkNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Password hash verifications")
+                .register(registry);
+        FunctionCounter.builder("auth.password.verified.hits", verifiedHits, LongAdder::sum)
+                .description("Authentications trusted from recently verified credentials")
+                .register(registry);
+        FunctionCounter.builder("auth.password.rejections", rejections, LongAdder::sum)
+                .description("Authentications rejected with the password check queue full")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -1,62 +1,117 @@
 package co.ke.ipsl.interview.taskmanagement.security;
 
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskSecurityProperties;
+import co.ke.ipsl.interview.taskmanagement.database.PostgresNotifications;
+import co.ke.ipsl.interview.taskmanagement.database.ReplicaLag;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
-import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
 
 /**
+ * Looks users up together with their roles in one query, caching them in process. The cache is
+ * dropped whenever the {@code users}, {@code roles} or {@code user_roles} tables change, as
+ * notified by postgres on {@value #CHANNEL}.
+ *
  * @author Denis Gitonga
  */
 @Component
-public class UserDetailsService implements ReactiveUserDetailsService {
+public class UserDetailsService implements ReactiveUserDetailsService, SmartLifecycle {
+
+    static final String CHANNEL = "users_changed";
 
     private final DatabaseClient client;
 
-    public UserDetailsService(DatabaseClient client) {
+    private final PostgresNotifications notifications;
+
+    private final ReplicaLag replicaLag;
+
+    /**
+     * Holds the projection rather than {@link UserDetails}, a fresh instance being built for every
+     * lookup since authentication may erase its credentials.
+     */
+    private final AsyncCache<String, UserProjection> users;
+
+    private volatile Disposable subscription;
+
+    public UserDetailsService(
+            DatabaseClient client,
+            PostgresNotifications notifications,
+            ReplicaLag replicaLag,
+            TaskSecurityProperties properties
+    ) {
         this.client = client;
+        this.notifications = notifications;
+        this.replicaLag = replicaLag;
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(properties.userCache().ttl())
+                .maximumSize(properties.userCache().maximumSize())
+                .buildAsync();
     }
 
     @Override
     public Mono<UserDetails> findByUsername(String username) {
+        // an unknown user completes empty, which the cache does not retain. A cached user outlives
+        // the read, so it is read from the replica only once that caught up
+        return Mono.fromFuture(() -> users.get(username, (email, executor) -> replicaLag.routing()
+                        .flatMap(routing -> fetchUser(email).contextWrite(routing))
+                        .toFuture()), true)
+                .map(userProjection -> User.withUsername(userProjection.username())
+                        .password(userProjection.password())
+                        .roles(userProjection.roles().toArray(String[]::new))
+                        .disabled(false)
+                        .accountExpired(false)
+                        .build());
+    }
 
+    Mono<UserProjection> fetchUser(String email) {
         return client.sql("""
-                        select id, username, password, email, first_name, last_name from tasks.users
-                        where email = :email
+                        select u.id, u.email, u.password, u.first_name, u.last_name,
+                               coalesce(array_agg(r.role) filter (where r.role is not null), '{}') as roles
+                        from tasks.users u
+                        left join tasks.user_roles ur on ur.usr_id = u.id
+                        left join tasks.roles r on r.id = ur.rol_id
+                        where u.email = :email
+                        group by u.id
                         """)
-                .bind("email", username)
+                .bind("email", email)
                 .map((row, rowMetadata) -> new UserProjection(
                         row.get("id", UUID.class),
                         row.get("email", String.class),
                         row.get("password", String.class),
                         row.get("first_name", String.class),
-                        row.get("last_name", String.class)
+                        row.get("last_name", String.class),
+                        List.of(row.get("roles", String[].class))
                 ))
-                .one()
-                .flatMap(userProjection -> fetchUserRoles(userProjection.id())
-                        .map(userRoles -> User.withUsername(userProjection.username())
-                                .password(userProjection.password())
-                                .disabled(false)
-                                .accountExpired(false)
-                                .build()
-                        ));
+                .one();
     }
 
-    Mono<List<String>> fetchUserRoles(UUID userId) {
-        return client.sql("""
-                        select role from tasks.roles
-                        join tasks.user_roles ur on roles.id = ur.rol_id
-                        where usr_id = :user_id
-                        """)
-                .bind("user_id", userId)
-                .mapValue(String.class)
-                .all()
-                .collectList();
+    @Override
+    public void start() {
+        subscription = notifications.listen(CHANNEL)
+                .subscribe(message -> users.synchronous().invalidateAll());
+    }
+
+    @Override
+    public void stop() {
+        final var current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+        subscription = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscription != null;
     }
 }
@@ -1,5 +1,6 @@
 package co.ke.ipsl.interview.taskmanagement.security;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -14,6 +15,8 @@ public record UserProjection(
 
         String firstName,
 
-        String lastName
+        String lastName,
+
+        List<String> roles
 ) {
 }
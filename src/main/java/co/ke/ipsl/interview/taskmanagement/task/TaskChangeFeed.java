@@ -0,0 +1,198 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskChangeProperties;
+import co.ke.ipsl.interview.taskmanagement.database.PostgresNotifications;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskChangeDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import co.ke.ipsl.interview.taskmanagement.task.model.TaskRepository;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Task changes as notified by the database on {@value #CHANNEL}, for every writer of every node.
+ * One database listener serves all subscribers, being held only while anybody subscribes.
+ * Notifications carry the task as written, tasks too large for a notification being looked up
+ * once per burst of changes.
+ * <p>
+ * Each subscriber reads from a buffer of its own. A subscriber falling {@link
+ * TaskChangeProperties#buffer()} changes behind has its buffer dropped and is sent a resync, as
+ * are all subscribers whenever the listener reconnects.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class TaskChangeFeed {
+
+    static final String CHANNEL = "tasks_changed";
+
+    private static final int LOOKUP_BATCH = 64;
+
+    private static final Duration LOOKUP_WINDOW = Duration.ofMillis(10);
+
+    private final Logger log = LoggerFactory.getLogger(TaskChangeFeed.class);
+
+    private final TaskRepository taskRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TaskChangeProperties properties;
+
+    private final Flux<TaskChangeDto> changes;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private final Counter overflows;
+
+    public TaskChangeFeed(
+            PostgresNotifications notifications,
+            TaskRepository taskRepository,
+            ObjectMapper objectMapper,
+            TaskChangeProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.taskRepository = taskRepository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.changes = notifications.listen(CHANNEL)
+                .bufferTimeout(LOOKUP_BATCH, LOOKUP_WINDOW)
+                .concatMap(this::resolve)
+                .publish()
+                .refCount(1, properties.linger());
+
+        Gauge.builder("task.changes.subscribers", subscribers, AtomicInteger::get)
+                .description("Clients subscribed to the task change feed")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("task.changes.overflows")
+                .description("Subscribers sent a resync after falling too far behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Changes written from now on, never completing.
+     */
+    public Flux<TaskChangeDto> subscribe() {
+        return Flux.defer(this::buffered)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    public Duration heartbeat() {
+        return properties.heartbeat();
+    }
+
+    private Flux<TaskChangeDto> buffered() {
+        return changes
+                .onBackpressureBuffer(properties.buffer())
+                .onErrorResume(Exceptions::isOverflow, error -> {
+                    overflows.increment();
+                    return Flux.just(TaskChangeDto.resync())
+                            .concatWith(Flux.defer(this::buffered));
+                });
+    }
+
+    /**
+     * Turns notifications into changes in the order they were sent, looking the written tasks
+     * not carried by their notification up in one query. The lookup runs on the primary, which a
+     * replica may lag behind. A created task is sent as it is now, an updated task whose version
+     * moved on since is skipped, its newer notification following either way.
+     */
+    private Flux<TaskChangeDto> resolve(List<PostgresNotifications.Message> messages) {
+        final var notices = new ArrayList<Notice>(messages.size());
+        for (final var message : messages) {
+            final var notice = parse(message);
+            if (notice != null) {
+                notices.add(notice);
+            }
+        }
+
+        final var ids = notices.stream()
+                .filter(notice -> notice.task() == null && (notice.op() == Op.INSERT || notice.op() == Op.UPDATE))
+                .map(Notice::id)
+                .distinct()
+                .toList();
+        final Mono<Map<UUID, Task>> written = ids.isEmpty()
+                ? Mono.just(Map.of())
+                : taskRepository.findAllById(ids).collectMap(Task::id, Function.identity());
+
+        return written
+                .flatMapIterable(tasks -> notices.stream()
+                        .map(notice -> notice.change(notice.id() == null ? null : tasks.get(notice.id())))
+                        .filter(Objects::nonNull)
+                        .toList())
+                .onErrorResume(error -> {
+                    log.warn("Looking up {} changed tasks failed", ids.size(), error);
+                    return Mono.just(TaskChangeDto.resync());
+                });
+    }
+
+    private Notice parse(PostgresNotifications.Message message) {
+        if (message.resync()) {
+            return Notice.RESYNC;
+        }
+        try {
+            return objectMapper.readValue(message.payload(), Notice.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed task change {}", message.payload(), e);
+            return null;
+        }
+    }
+
+    enum Op {
+        INSERT,
+        UPDATE,
+        DELETE,
+        RESYNC;
+
+        @JsonCreator
+        static Op of(String op) {
+            return valueOf(op.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * The payload sent by the {@code tasks_changed} trigger.
+     *
+     * @param task the task as written, missing for deletes and tasks too large for a notification
+     */
+    record Notice(Op op, UUID id, int version, @Nullable TaskDto task) {
+
+        static final Notice RESYNC = new Notice(Op.RESYNC, null, 0, null);
+
+        /**
+         * The change notified, {@code current} being the task as looked up when not carried.
+         */
+        TaskChangeDto change(@Nullable Task current) {
+            if (task != null) {
+                return op == Op.INSERT ? TaskChangeDto.created(task) : TaskChangeDto.updated(task);
+            }
+            return switch (op) {
+                case INSERT -> current != null ? TaskChangeDto.created(TaskDto.of(current)) : null;
+                case UPDATE -> current != null && current.version() == version ? TaskChangeDto.updated(TaskDto.of(current)) : null;
+                case DELETE -> TaskChangeDto.deleted(id, version);
+                case RESYNC -> TaskChangeDto.resync();
+            };
+        }
+    }
+}
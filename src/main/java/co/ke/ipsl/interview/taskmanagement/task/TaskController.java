@@ -1,24 +1,49 @@
 package co.ke.ipsl.interview.taskmanagement.task;
 
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskResponseCache;
+import co.ke.ipsl.interview.taskmanagement.task.dto.BatchTaskResultDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.CountMode;
 import co.ke.ipsl.interview.taskmanagement.task.dto.CreateTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskChangeDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.CursorPage;
 import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
 import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskFields;
 import co.ke.ipsl.interview.taskmanagement.task.dto.UpdateTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidSearchException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskVersionMismatchException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 import static org.springframework.http.ResponseEntity.created;
 
 /**
@@ -30,20 +55,171 @@ public class TaskController {
 
     private final Logger log = LoggerFactory.getLogger(TaskController.class);
 
+    static final int MAX_BATCH_SIZE = 1000;
+
     private final TaskService taskService;
 
-    public TaskController(TaskService taskService) {
+    private final TaskResponseCache taskResponseCache;
+
+    private final TaskChangeFeed taskChangeFeed;
+
+    private final ObjectMapper sparseObjectMapper;
+
+    public TaskController(
+            TaskService taskService,
+            TaskResponseCache taskResponseCache,
+            TaskChangeFeed taskChangeFeed,
+            ObjectMapper objectMapper
+    ) {
         this.taskService = taskService;
+        this.taskResponseCache = taskResponseCache;
+        this.taskChangeFeed = taskChangeFeed;
+        this.sparseObjectMapper = TaskFields.sparse(objectMapper);
     }
 
 
+    /**
+     * Responds with a {@link Slice} of {@link TaskDto}, or a {@code Page} unless counting is
+     * disabled, served from the pre-encoded response cache. Conditional requests are answered
+     * {@code 304 Not Modified} while the listing is unchanged.
+     */
     @GetMapping
-    Mono<Page<TaskDto>> fetchTasks(
+    Mono<ResponseEntity<DataBuffer>> fetchTasks(
             FilterTaskDto filterTaskDto,
-            @PageableDefault(size = 20) Pageable pageable
+            @RequestParam(defaultValue = "exact") String count,
+            @RequestParam(required = false) String fields,
+            @PageableDefault(size = 20) Pageable pageable,
+            ServerWebExchange exchange
     ) {
         log.debug("Filtering: {}", filterTaskDto);
-        return taskService.fetchTasks(filterTaskDto, pageable);
+        final var countMode = CountMode.of(count);
+        final var taskFields = TaskFields.of(fields);
+        return taskResponseCache.respond(filterTaskDto, listing(pageable, countMode, taskFields), taskFields, exchange,
+                () -> taskService.fetchTasks(filterTaskDto, pageable, countMode, taskFields));
+    }
+
+    /**
+     * What an offset listing response depends on besides its filter.
+     */
+    static List<Object> listing(Pageable pageable, CountMode countMode, TaskFields fields) {
+        return List.of(pageable, countMode, fields);
+    }
+
+    /**
+     * Responds with a {@link CursorPage} of {@link TaskDto}, served from the pre-encoded response
+     * cache. Conditional requests are answered {@code 304 Not Modified} while the page is unchanged.
+     */
+    @GetMapping(params = "cursor")
+    Mono<ResponseEntity<DataBuffer>> fetchTasks(
+            FilterTaskDto filterTaskDto,
+            @RequestParam String cursor,
+            @RequestParam(required = false) String fields,
+            @PageableDefault(size = 20) Pageable pageable,
+            ServerWebExchange exchange
+    ) {
+        log.debug("Filtering: {} after cursor: {}", filterTaskDto, cursor);
+        unranked(filterTaskDto);
+        final var taskFields = TaskFields.of(fields);
+        return taskResponseCache.respond(filterTaskDto, List.of(cursor, pageable, taskFields), taskFields, exchange,
+                () -> taskService.fetchTasks(filterTaskDto, cursor, pageable, taskFields));
+    }
+
+    /**
+     * Streams the whole filtered set as newline delimited json, at the pace the client reads it.
+     * Tasks of a sparse fieldset are written without the properties left out. A stream failing
+     * part way, such as one whose client stalled, is aborted without the final chunk, so a client
+     * can tell a truncated body from a complete one.
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    Flux<?> streamTasks(
+            FilterTaskDto filterTaskDto,
+            @RequestParam(required = false) String fields,
+            @SortDefault({"dueDate", "id"}) Sort sort
+    ) {
+        log.debug("Streaming: {}", filterTaskDto);
+        unranked(filterTaskDto);
+        return tasks(filterTaskDto, TaskFields.of(fields), sort);
+    }
+
+    /**
+     * Streams the whole filtered set as server-sent events, as {@link #streamTasks} does. A stream
+     * failing part way ends with an {@code error} event holding the problem, after which the
+     * listing should be streamed again.
+     */
+    @GetMapping(produces = TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<?>> streamTaskEvents(
+            FilterTaskDto filterTaskDto,
+            @RequestParam(required = false) String fields,
+            @SortDefault({"dueDate", "id"}) Sort sort
+    ) {
+        log.debug("Streaming events: {}", filterTaskDto);
+        unranked(filterTaskDto);
+        return tasks(filterTaskDto, TaskFields.of(fields), sort)
+                .<ServerSentEvent<?>>map(task -> ServerSentEvent.builder(task).build())
+                .onErrorResume(e -> {
+                    log.warn("Streaming {} failed", filterTaskDto, e);
+                    return Mono.just(ServerSentEvent.builder(problem(e))
+                            .event("error")
+                            .build());
+                });
+    }
+
+    private Flux<?> tasks(FilterTaskDto filterTaskDto, TaskFields fields, Sort sort) {
+        final var tasks = taskService.streamTasks(filterTaskDto, sort, fields);
+        return fields.all()
+                ? tasks
+                : tasks.<JsonNode>map(sparseObjectMapper::valueToTree);
+    }
+
+    /**
+     * Refuses a full text search where paging through or streaming its matches would silently
+     * stop at the candidates a search scans; offset listings report their capped total instead.
+     */
+    private static void unranked(FilterTaskDto filterTaskDto) {
+        if (filterTaskDto.q() != null) {
+            throw new InvalidSearchException();
+        }
+    }
+
+    /**
+     * The problem detail {@code e} would have been answered with, had the response not been
+     * committed yet.
+     */
+    static ProblemDetail problem(Throwable e) {
+        final var responseStatus = AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class);
+        return ProblemDetail.forStatus(responseStatus == null
+                ? HttpStatus.INTERNAL_SERVER_ERROR
+                : responseStatus.code());
+    }
+
+    /**
+     * Streams task changes as server-sent events named after their type, from now on. A
+     * {@code resync} event means changes were missed and listings should be fetched again.
+     */
+    @GetMapping(path = "/changes", produces = TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<TaskChangeDto>> streamChanges() {
+        final var changes = taskChangeFeed.subscribe()
+                .map(change -> ServerSentEvent.builder(change)
+                        .event(change.type().name().toLowerCase(Locale.ROOT))
+                        .build());
+        final var heartbeats = Flux.interval(taskChangeFeed.heartbeat())
+                .map(tick -> ServerSentEvent.<TaskChangeDto>builder()
+                        .comment("heartbeat")
+                        .build());
+        return Flux.merge(changes, heartbeats);
+    }
+
+    /**
+     * Responds with the task tagged with its version, or {@code 304 Not Modified} when that is
+     * the version given by {@code If-None-Match}.
+     */
+    @GetMapping("/{taskId}")
+    Mono<ResponseEntity<TaskDto>> fetchTask(@PathVariable UUID taskId) {
+        return taskService.fetchTask(taskId)
+                .map(taskDto -> ResponseEntity.ok()
+                        .eTag(eTag(taskDto))
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(taskDto));
     }
 
     @PostMapping
@@ -52,22 +228,71 @@ public class TaskController {
     ) {
         return taskService.createTask(createTaskDto)
                 .map(taskDto -> created(URI.create("tasks"))
+                        .eTag(eTag(taskDto))
                         .body(taskDto));
     }
 
+    /**
+     * Creates up to {@value #MAX_BATCH_SIZE} tasks at once, responding with the outcome of each in
+     * request order.
+     */
+    @PostMapping("/batch")
+    Mono<ResponseEntity<List<BatchTaskResultDto>>> createTasks(
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid CreateTaskDto> createTaskDtos
+    ) {
+        return taskService.createTasks(createTaskDtos)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Updates the task, only if it is still in the version given by {@code If-Match} when present.
+     */
     @PutMapping("/{taskId}")
     Mono<ResponseEntity<TaskDto>> updateTask(
             @PathVariable UUID taskId,
+            @RequestHeader(name = IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid UpdateTaskDto updateTaskDto) {
-        return taskService.updateTask(taskId, updateTaskDto)
-                .map(ResponseEntity::ok);
+        return taskService.updateTask(taskId, version(ifMatch), updateTaskDto)
+                .map(taskDto -> ResponseEntity.ok()
+                        .eTag(eTag(taskDto))
+                        .body(taskDto));
     }
 
+    /**
+     * Deletes the task, only if it is still in the version given by {@code If-Match} when present.
+     */
     @DeleteMapping("/{taskId}")
     Mono<ResponseEntity<TaskDto>> deleteTask(
-            @PathVariable UUID taskId
+            @PathVariable UUID taskId,
+            @RequestHeader(name = IF_MATCH, required = false) String ifMatch
     ) {
-        return taskService.deleteTask(taskId)
+        return taskService.deleteTask(taskId, version(ifMatch))
                 .map(ResponseEntity::ok);
     }
+
+    /**
+     * The entity tag of a task is its version.
+     */
+    static String eTag(TaskDto taskDto) {
+        return "\"" + taskDto.version() + "\"";
+    }
+
+    /**
+     * The version required by an {@code If-Match} header, null when absent or {@code *}. Weak or
+     * otherwise unknown tags can never match.
+     */
+    static Integer version(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        final var tag = ifMatch.trim();
+        try {
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                return Integer.valueOf(tag.substring(1, tag.length() - 1));
+            }
+        } catch (NumberFormatException e) {
+            // falls through
+        }
+        throw new TaskVersionMismatchException();
+    }
 }
@@ -0,0 +1,147 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache.TASK_COUNTS;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * Resolves listing totals without scanning the tasks table where possible. The unfiltered and
+ * due date only listings are read from {@code tasks.task_counts} plus the deltas a trigger
+ * appends to {@code tasks.task_count_deltas} on every write, which are folded into the counts
+ * every {@link #COMPACTION_INTERVAL}. Any other filter falls back to a {@code count(*)} cached in
+ * the current generation of the filter.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class TaskCounter implements SmartLifecycle {
+
+    static final Duration COMPACTION_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * Deltas folded per statement, bounding how long a compaction holds the counts it updates.
+     */
+    private static final int COMPACTION_BATCH = 10_000;
+
+    private final Logger log = LoggerFactory.getLogger(TaskCounter.class);
+
+    private final R2dbcEntityTemplate template;
+
+    private final DatabaseClient client;
+
+    private final TaskCache taskCache;
+
+    private volatile Disposable compaction;
+
+    public TaskCounter(R2dbcEntityTemplate template, DatabaseClient client, TaskCache taskCache) {
+        this.template = template;
+        this.client = client;
+        this.taskCache = taskCache;
+    }
+
+    public Mono<Long> count(FilterTaskDto filterTaskDto) {
+        final var bucket = filterTaskDto.countBucket();
+        if (bucket == null) {
+            // the cached json number may come back as an integer
+            return taskCache.<Number>get(TASK_COUNTS, filterTaskDto, "count",
+                            () -> template.count(query(filterTaskDto.criteria()), Task.class).cast(Number.class))
+                    .map(Number::longValue);
+        }
+
+        return client.sql("""
+                        select cast(
+                            coalesce((select total from tasks.task_counts where bucket = :bucket), 0)
+                            + coalesce((select sum(delta) from tasks.task_count_deltas where bucket = :bucket), 0)
+                        as bigint)
+                        """)
+                .bind("bucket", bucket)
+                .mapValue(Long.class)
+                .one()
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Folds the oldest deltas into the counts in one statement, so readers see either both or
+     * neither. Buckets are updated in order and deltas already taken by another node are
+     * skipped, so concurrent compactions neither deadlock nor wait on each other. Emits the number
+     * of buckets updated.
+     */
+    Mono<Long> compact() {
+        return client.sql("""
+                        with moved as (
+                            delete from tasks.task_count_deltas
+                            where id in (
+                                select id from tasks.task_count_deltas
+                                order by id
+                                limit :batch
+                                for update skip locked
+                            )
+                            returning bucket, delta
+                        )
+                        insert into tasks.task_counts(bucket, total)
+                        select bucket, sum(delta) from moved
+                        group by bucket
+                        order by bucket
+                        on conflict (bucket) do update set total = tasks.task_counts.total + excluded.total
+                        """)
+                .bind("batch", COMPACTION_BATCH)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> estimate(FilterTaskDto filterTaskDto) {
+        if (!"all".equals(filterTaskDto.countBucket())) {
+            return count(filterTaskDto);
+        }
+
+        // reltuples is -1 until the table has been vacuumed or analyzed at least once
+        return client.sql("""
+                        select reltuples::bigint from pg_class
+                        where oid = 'tasks.tasks'::regclass
+                        """)
+                .mapValue(Long.class)
+                .one()
+                .filter(estimate -> estimate >= 0)
+                .switchIfEmpty(Mono.defer(() -> count(filterTaskDto)));
+    }
+
+    @Override
+    public void start() {
+        compaction = Flux.interval(COMPACTION_INTERVAL)
+                .onBackpressureDrop()
+                .concatMap(tick -> compact()
+                        .onErrorResume(error -> {
+                            log.warn("Compacting task count deltas failed", error);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        final var current = compaction;
+        if (current != null) {
+            current.dispose();
+        }
+        compaction = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return compaction != null;
+    }
+}
@@ -0,0 +1,77 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskCacheProperties;
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskResponseCache;
+import co.ke.ipsl.interview.taskmanagement.task.dto.CountMode;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskFields;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Loads the listings most requested after a deploy, the first page of the unfiltered listing and
+ * of the due dates coming up, as the controller defaults them. Both the listings and their
+ * encoded responses are cached, in every encoding. Runners complete before readiness
+ * is reported, so traffic only arrives once they are cached, or once
+ * {@link TaskCacheProperties.Warming#startupTimeout()} ran out.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class TaskListingWarmUp implements ApplicationRunner {
+
+    private final Logger log = LoggerFactory.getLogger(TaskListingWarmUp.class);
+
+    private final TaskService taskService;
+
+    private final TaskResponseCache taskResponseCache;
+
+    private final TaskCacheProperties.Warming properties;
+
+    public TaskListingWarmUp(
+            TaskService taskService,
+            TaskResponseCache taskResponseCache,
+            TaskCacheProperties properties
+    ) {
+        this.taskService = taskService;
+        this.taskResponseCache = taskResponseCache;
+        this.properties = properties.warming();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        final var today = LocalDate.now();
+        final var filters = Stream.concat(
+                        Stream.of(new FilterTaskDto(null, null, null, null, null, null, null)),
+                        Stream.iterate(today, date -> date.plusDays(1))
+                                .limit(properties.startupDueDays())
+                                .map(date -> new FilterTaskDto(null, date, null, null, null, null, null)))
+                .toList();
+
+        final var pageable = PageRequest.of(0, 20);
+        try {
+            Flux.fromIterable(filters)
+                    .flatMap(filter -> taskResponseCache.warm(filter,
+                            TaskController.listing(pageable, CountMode.EXACT, TaskFields.ALL), TaskFields.ALL,
+                            () -> taskService.fetchTasks(filter, pageable, CountMode.EXACT, TaskFields.ALL)),
+                            properties.concurrency())
+                    .then()
+                    .block(properties.startupTimeout());
+            log.info("Warmed up {} task listings", filters.size());
+        } catch (RuntimeException e) {
+            log.warn("Warming up task listings failed, serving them cold", e);
+        }
+    }
+}
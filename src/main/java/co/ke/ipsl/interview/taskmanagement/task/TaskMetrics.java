@@ -0,0 +1,61 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times {@link TaskService} operations from subscription to termination into the
+ * {@code task.service} timer, publishing a percentile histogram so that latency quantiles can be
+ * aggregated across nodes, and counts their failures in {@code task.service.errors}.
+ *
+ * @author Denis Gitonga
+ */
+class TaskMetrics {
+
+    private final MeterRegistry registry;
+
+    TaskMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    <T> Mono<T> timed(String operation, Mono<T> mono) {
+        return Mono.defer(() -> {
+            final var sample = Timer.start(registry);
+            return mono
+                    .doOnSuccess(value -> stop(sample, operation, "success", null))
+                    .doOnError(error -> stop(sample, operation, "error", error))
+                    .doOnCancel(() -> stop(sample, operation, "cancelled", null));
+        });
+    }
+
+    <T> Flux<T> timed(String operation, Flux<T> flux) {
+        return Flux.defer(() -> {
+            final var sample = Timer.start(registry);
+            return flux
+                    .doOnComplete(() -> stop(sample, operation, "success", null))
+                    .doOnError(error -> stop(sample, operation, "error", error))
+                    .doOnCancel(() -> stop(sample, operation, "cancelled", null));
+        });
+    }
+
+    private void stop(Timer.Sample sample, String operation, String outcome, @Nullable Throwable error) {
+        final var exception = error == null ? "none" : error.getClass().getSimpleName();
+        sample.stop(Timer.builder("task.service")
+                .description("Task service operations")
+                .tags("operation", operation, "outcome", outcome, "exception", exception)
+                .publishPercentileHistogram()
+                .register(registry));
+
+        if (error != null) {
+            Counter.builder("task.service.errors")
+                    .description("Failed task service operations")
+                    .tags("operation", operation, "exception", exception)
+                    .register(registry)
+                    .increment();
+        }
+    }
+}
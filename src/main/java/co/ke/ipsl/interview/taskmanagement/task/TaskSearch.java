@@ -0,0 +1,100 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * The full text search of a listing together with its other filters, rendered to SQL so that
+ * matching, filtering and ranking run in one statement over the {@code search} index.
+ * <p>
+ * Only the first {@value #CANDIDATES} matches found are ranked, paged and counted, which bounds
+ * the cost of a broad term whatever the number of tasks it matches.
+ *
+ * @author Denis Gitonga
+ */
+record TaskSearch(FilterTaskDto filterTaskDto) {
+
+    /**
+     * Cap on the matches a search scans.
+     */
+    static final int CANDIDATES = 1000;
+
+    /**
+     * Orders the candidates best ranked first.
+     */
+    static final String RANK = "rank desc";
+
+    /**
+     * Common table expression {@code candidates} holding the {@code id} and {@code rank} of the
+     * first {@value #CANDIDATES} matches, for a statement to join back to {@code tasks.tasks}.
+     */
+    String candidates() {
+        return "with candidates as (select id, ts_rank(search, websearch_to_tsquery('english', :q)) as rank"
+                + " from tasks.tasks " + where() + " limit :candidates) ";
+    }
+
+    /**
+     * The {@code where} clause matching the search and every other filter.
+     */
+    private String where() {
+        final var where = new StringBuilder("where search @@ websearch_to_tsquery('english', :q)");
+        if (filterTaskDto.title() != null) {
+            where.append(" and title = :title");
+        }
+
+        if (filterTaskDto.dueDate() != null) {
+            where.append(" and due_date = :dueDate");
+        }
+
+        if (filterTaskDto.dueFrom() != null) {
+            where.append(" and due_date >= :dueFrom");
+        }
+
+        if (filterTaskDto.dueTo() != null) {
+            where.append(" and due_date <= :dueTo");
+        }
+
+        if (filterTaskDto.dueBefore() != null) {
+            where.append(" and due_date < :dueBefore");
+        }
+
+        if (filterTaskDto.ids() != null && !filterTaskDto.ids().isEmpty()) {
+            where.append(" and id in (:ids)");
+        }
+
+        return where.toString();
+    }
+
+    /**
+     * Binds the parameters of {@link #candidates()}.
+     */
+    DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec) {
+        var bound = spec.bind("q", filterTaskDto.q())
+                .bind("candidates", CANDIDATES);
+        if (filterTaskDto.title() != null) {
+            bound = bound.bind("title", filterTaskDto.title());
+        }
+
+        if (filterTaskDto.dueDate() != null) {
+            bound = bound.bind("dueDate", filterTaskDto.dueDate());
+        }
+
+        if (filterTaskDto.dueFrom() != null) {
+            bound = bound.bind("dueFrom", filterTaskDto.dueFrom());
+        }
+
+        if (filterTaskDto.dueTo() != null) {
+            bound = bound.bind("dueTo", filterTaskDto.dueTo());
+        }
+
+        if (filterTaskDto.dueBefore() != null) {
+            bound = bound.bind("dueBefore", filterTaskDto.dueBefore());
+        }
+
+        if (filterTaskDto.ids() != null && !filterTaskDto.ids().isEmpty()) {
+            bound = bound.bind("ids", filterTaskDto.ids());
+        }
+
+        return bound;
+    }
+}
@@ -1,27 +1,46 @@
 package co.ke.ipsl.interview.taskmanagement.task;
 
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskDatabaseProperties;
+import co.ke.ipsl.interview.taskmanagement.database.ReadRouting;
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache;
+import co.ke.ipsl.interview.taskmanagement.task.dto.BatchTaskResultDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.CountMode;
 import co.ke.ipsl.interview.taskmanagement.task.dto.CreateTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.CursorPage;
 import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskCursor;
 import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskFields;
 import co.ke.ipsl.interview.taskmanagement.task.dto.UpdateTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidCursorException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidSearchException;
 import co.ke.ipsl.interview.taskmanagement.task.exception.TaskAlreadyExistException;
 import co.ke.ipsl.interview.taskmanagement.task.exception.TaskMissingException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskStreamTimeoutException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskVersionMismatchException;
 import co.ke.ipsl.interview.taskmanagement.task.model.Task;
 import co.ke.ipsl.interview.taskmanagement.task.model.TaskRepository;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.*;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
-import static org.springframework.data.domain.ExampleMatcher.GenericPropertyMatchers.exact;
-import static org.springframework.data.domain.ExampleMatcher.GenericPropertyMatchers.ignoreCase;
+import static co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache.TASKS;
 import static org.springframework.data.relational.core.query.Criteria.*;
 import static org.springframework.data.relational.core.query.Query.query;
 
@@ -31,64 +50,407 @@ import static org.springframework.data.relational.core.query.Query.query;
 @Service
 public class TaskService {
 
+    static final int STREAM_FETCH_SIZE = 250;
+
+    /**
+     * Order of unsorted listings, served by the {@code (due_date, id)} index.
+     */
+    static final Sort DEFAULT_SORT = Sort.by("dueDate", "id");
+
     private final TaskRepository taskRepository;
 
     private final R2dbcEntityTemplate template;
 
-    public TaskService(TaskRepository taskRepository, R2dbcEntityTemplate template) {
+    private final TaskCounter taskCounter;
+
+    private final TaskCache taskCache;
+
+    private final TaskWriteCoalescer taskWriteCoalescer;
+
+    private final TaskDatabaseProperties databaseProperties;
+
+    private final TaskMetrics metrics;
+
+    public TaskService(
+            TaskRepository taskRepository,
+            R2dbcEntityTemplate template,
+            TaskCounter taskCounter,
+            TaskCache taskCache,
+            TaskWriteCoalescer taskWriteCoalescer,
+            TaskDatabaseProperties databaseProperties,
+            MeterRegistry meterRegistry
+    ) {
         this.taskRepository = taskRepository;
         this.template = template;
+        this.taskCounter = taskCounter;
+        this.taskCache = taskCache;
+        this.taskWriteCoalescer = taskWriteCoalescer;
+        this.databaseProperties = databaseProperties;
+        this.metrics = new TaskMetrics(meterRegistry);
+    }
+
+    public Mono<Slice<TaskDto>> fetchTasks(
+            FilterTaskDto filterTaskDto,
+            Pageable pageable,
+            CountMode countMode,
+            TaskFields fields
+    ) {
+        return metrics.timed("fetchTasks", taskCache.get(TASKS, filterTaskDto, List.of(pageable, countMode, fields),
+                        () -> loadTasks(filterTaskDto, pageable, countMode, fields)));
     }
 
-    @Cacheable(value = "tasks")
-    public Mono<Page<TaskDto>> fetchTasks(
+    private Mono<Slice<TaskDto>> loadTasks(
             FilterTaskDto filterTaskDto,
-            Pageable pageable
+            Pageable pageable,
+            CountMode countMode,
+            TaskFields fields
     ) {
+        if (filterTaskDto.q() != null) {
+            return searchTasks(filterTaskDto, pageable, countMode, fields);
+        }
 
         final var criteria = filterTaskDto.criteria();
-        final var tasksMono = template.select(Task.class).matching(query(criteria).with(pageable))
+        if (countMode == CountMode.NONE) {
+            final var size = pageable.getPageSize();
+            return select(page(criteria, pageable).limit(size + 1), fields)
+                    .collectList()
+                    .map(tasks -> tasks.size() > size
+                            ? new SliceImpl<>(tasks.subList(0, size), pageable, true)
+                            : new SliceImpl<>(tasks, pageable, false));
+        }
+
+        final var tasksMono = select(page(criteria, pageable), fields)
+                .collectList();
+        final var taskCountMono = countMode == CountMode.ESTIMATE
+                ? taskCounter.estimate(filterTaskDto)
+                : taskCounter.count(filterTaskDto);
+
+        return Mono.zip(tasksMono, taskCountMono,
+                (tasks, taskCount) -> new PageImpl<>(tasks, pageable, taskCount));
+    }
+
+    /**
+     * Selects only the columns of {@code fields}, leaving the other properties null.
+     */
+    private Flux<TaskDto> select(Query query, TaskFields fields) {
+        return template.select(Task.class).matching(query.columns(fields.columns()))
+                .all()
+                .map(task -> fields.project(TaskDto.of(task)));
+    }
+
+    private Query page(Criteria criteria, Pageable pageable) {
+        checkSort(pageable.getSort());
+        final var query = query(criteria).with(pageable);
+        return pageable.getSort().isSorted() ? query : query.sort(DEFAULT_SORT);
+    }
+
+    /**
+     * Refuses with {@link InvalidCursorException} a {@code sort} naming a property tasks do not
+     * have, which would otherwise fail the statement.
+     */
+    private void checkSort(Sort sort) {
+        for (var order : sort) {
+            column(order.getProperty());
+        }
+    }
+
+    private String column(String property) {
+        final var persistentProperty = template.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Task.class)
+                .getPersistentProperty(property);
+        if (persistentProperty == null) {
+            throw new InvalidCursorException();
+        }
+        return persistentProperty.getColumnName().getReference();
+    }
+
+    /**
+     * Listing of a full text search: its {@link TaskSearch#candidates() candidates} ranked and
+     * paged in one statement. Pages are in rank order unless a sort is requested. There being no
+     * estimate of the matches, the candidates are counted exactly by a second statement unless the
+     * count mode is none, so the total never exceeds {@value TaskSearch#CANDIDATES}.
+     */
+    private Mono<Slice<TaskDto>> searchTasks(
+            FilterTaskDto filterTaskDto,
+            Pageable pageable,
+            CountMode countMode,
+            TaskFields fields
+    ) {
+        final var search = new TaskSearch(filterTaskDto);
+        final var size = pageable.getPageSize();
+        final var limit = countMode == CountMode.NONE ? size + 1 : size;
+        final var tasksMono = search.bind(template.getDatabaseClient()
+                        .sql(search.candidates()
+                                + "select " + String.join(", ", fields.columns())
+                                + " from candidates join tasks.tasks using (id)"
+                                + " order by " + orderBy(pageable.getSort())
+                                + " limit :limit offset :offset"))
+                .bind("limit", limit)
+                .bind("offset", pageable.getOffset())
+                .map((row, metadata) -> fields.project(TaskDto.of(template.getConverter().read(Task.class, row, metadata))))
                 .all()
-                .map(TaskDto::of)
                 .collectList();
-       final var taskCountMono = template.count(query(criteria), Task.class);
 
-       return Mono.zip(tasksMono, taskCountMono,
-               (tasks, taskCount) -> new PageImpl<>(tasks, pageable, taskCount));
+        if (countMode == CountMode.NONE) {
+            return tasksMono.map(tasks -> tasks.size() > size
+                    ? new SliceImpl<>(tasks.subList(0, size), pageable, true)
+                    : new SliceImpl<>(tasks, pageable, false));
+        }
+
+        final var taskCountMono = search.bind(template.getDatabaseClient()
+                        .sql(search.candidates() + "select count(*) from candidates"))
+                .mapValue(Long.class)
+                .one();
+
+        return Mono.zip(tasksMono, taskCountMono,
+                (tasks, taskCount) -> new PageImpl<>(tasks, pageable, taskCount));
     }
 
-    @Transactional
-    @CacheEvict(value = "tasks", allEntries = true)
+    /**
+     * Order of a search listing: {@code sort} with ties broken by id, or best ranked first.
+     */
+    private String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return TaskSearch.RANK + ", id";
+        }
+
+        final var orders = new ArrayList<String>();
+        for (var order : sort) {
+            orders.add(column(order.getProperty()) + (order.isAscending() ? " asc" : " desc"));
+        }
+        if (sort.getOrderFor("id") == null) {
+            orders.add("id");
+        }
+        return String.join(", ", orders);
+    }
+
+    /**
+     * {@link FilterTaskDto#criteria()}, refusing a full text search: keyset pages and streams
+     * would silently stop at its {@value TaskSearch#CANDIDATES} candidates.
+     */
+    private static Mono<Criteria> criteria(FilterTaskDto filterTaskDto) {
+        if (filterTaskDto.q() != null) {
+            return Mono.error(new InvalidSearchException());
+        }
+        return Mono.just(filterTaskDto.criteria());
+    }
+
+    /**
+     * Keyset variant of {@link #fetchTasks(FilterTaskDto, Pageable, CountMode, TaskFields)}: seeks
+     * past the (sort key, id) tuple held by {@code cursor} instead of skipping rows with an offset,
+     * so every page costs the same regardless of depth. A blank cursor starts from the first page.
+     */
+    public Mono<CursorPage<TaskDto>> fetchTasks(
+            FilterTaskDto filterTaskDto,
+            String cursor,
+            Pageable pageable,
+            TaskFields fields
+    ) {
+        return metrics.timed("fetchTasksAfter", taskCache.get(TASKS, filterTaskDto, List.of(cursor, pageable, fields),
+                        () -> loadTasks(filterTaskDto, cursor, pageable, fields)));
+    }
+
+    private Mono<CursorPage<TaskDto>> loadTasks(
+            FilterTaskDto filterTaskDto,
+            String cursor,
+            Pageable pageable,
+            TaskFields fields
+    ) {
+        final var order = TaskCursor.order(pageable.getSort());
+        final var size = pageable.getPageSize();
+        final var seek = cursor.isBlank()
+                ? null
+                : TaskCursor.decode(cursor, order.getProperty()).criteria(order.getDirection());
+
+        return criteria(filterTaskDto)
+                .flatMap(criteria -> template.select(Task.class)
+                        .matching(query(seek == null ? criteria : criteria.and(seek))
+                                .columns(fields.columns(order.getProperty()))
+                                .sort(TaskCursor.sort(order))
+                                .limit(size + 1))
+                        .all()
+                        .collectList())
+                .map(tasks -> {
+                    final var hasNext = tasks.size() > size;
+                    final var content = hasNext ? tasks.subList(0, size) : tasks;
+                    final var nextCursor = hasNext
+                            ? TaskCursor.after(content.get(size - 1), order.getProperty()).encode()
+                            : null;
+
+                    return new CursorPage<>(
+                            content.stream().map(task -> fields.project(TaskDto.of(task))).toList(),
+                            size,
+                            nextCursor);
+                });
+    }
+
+    /**
+     * Streams every task matching {@code filterTaskDto} in {@code sort} order. Rows are pulled
+     * from a server-side cursor {@value #STREAM_FETCH_SIZE} at a time as the subscriber requests
+     * them, so the result set is never held in memory whatever its size.
+     * <p>
+     * The cursor holds a connection for as long as the subscriber reads, so the stream fails with
+     * {@link TaskStreamTimeoutException} once no task was emitted for {@link
+     * TaskDatabaseProperties#streamIdleTimeout()}, as when the subscriber stopped requesting,
+     * releasing the connection to other requests.
+     */
+    public Flux<TaskDto> streamTasks(FilterTaskDto filterTaskDto, Sort sort, TaskFields fields) {
+        checkSort(sort);
+        final var dataAccessStrategy = template.getDataAccessStrategy();
+        final var statementMapper = dataAccessStrategy.getStatementMapper().forType(Task.class);
+
+        return metrics.timed("streamTasks", criteria(filterTaskDto)
+                .flatMapMany(criteria -> {
+                    final var table = statementMapper.createSelect(dataAccessStrategy.getTableName(Task.class));
+                    final var select = table.withProjection(fields.columns())
+                            .withCriteria(criteria)
+                            .withSort(sort);
+
+                    return template.getDatabaseClient()
+                            .sql(statementMapper.getMappedObject(select))
+                            .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                            .map((row, metadata) -> template.getConverter().read(Task.class, row, metadata))
+                            .all();
+                })
+                .map(task -> fields.project(TaskDto.of(task)))
+                .timeout(databaseProperties.streamIdleTimeout(), Mono.error(TaskStreamTimeoutException::new))
+                .contextWrite(ReadRouting.readOnly()));
+    }
+
+    /**
+     * Creates the task in a single statement, the unique index on its title deciding between
+     * concurrent creates of the same title. Being one statement it runs outside of an explicit
+     * transaction, unless coalesced with other writes.
+     */
     public Mono<TaskDto> createTask(CreateTaskDto createTaskDto) {
-        return taskRepository.findByTitle(createTaskDto.title())
-                .hasElement()
-                .flatMap(titleExist -> {
-                    if (titleExist) {
-                        return Mono.error(new TaskAlreadyExistException());
+        return metrics.timed("createTask", write(() -> taskRepository.insertIfAbsent(
+                        createTaskDto.title(),
+                        createTaskDto.description(),
+                        createTaskDto.dueDate())
+                .switchIfEmpty(Mono.error(new TaskAlreadyExistException()))
+                .map(task -> new TaskWriteCoalescer.Write(TaskDto.of(task), List.of(task)))));
+    }
+
+    /**
+     * Creates {@code createTaskDtos} with one conflict check and one multi-row insert, reporting
+     * per task whether it was created. A title that exists, or appears earlier in the batch, is a
+     * conflict rather than an error.
+     */
+    @Transactional
+    public Mono<List<BatchTaskResultDto>> createTasks(List<CreateTaskDto> createTaskDtos) {
+        final var titles = createTaskDtos.stream()
+                .map(CreateTaskDto::title)
+                .distinct()
+                .toArray(String[]::new);
+
+        return metrics.timed("createTasks", taskRepository.findExistingTitles(titles)
+                .collect(Collectors.toSet())
+                .flatMap(existingTitles -> {
+                    final var candidates = new LinkedHashMap<String, CreateTaskDto>();
+                    for (var createTaskDto : createTaskDtos) {
+                        if (!existingTitles.contains(createTaskDto.title())) {
+                            candidates.putIfAbsent(createTaskDto.title(), createTaskDto);
+                        }
+                    }
+                    if (candidates.isEmpty()) {
+                        return Mono.just(List.<Task>of());
                     }
-                    var newTask = Task.of(createTaskDto);
-                    return taskRepository.save(newTask);
+
+                    return taskRepository.insertAll(
+                                    candidates.values().stream().map(CreateTaskDto::title).toArray(String[]::new),
+                                    candidates.values().stream().map(CreateTaskDto::description).toArray(String[]::new),
+                                    candidates.values().stream()
+                                            .map(task -> task.dueDate() == null ? null : task.dueDate().toString())
+                                            .toArray(String[]::new))
+                            .collectList()
+                            .flatMap(tasks -> taskCache.invalidateAfterCommit(tasks)
+                                    .thenReturn(tasks));
                 })
-                .map(TaskDto::of);
+                .map(tasks -> {
+                    final var created = tasks.stream()
+                            .collect(Collectors.toMap(Task::title, TaskDto::of));
+
+                    final var results = new ArrayList<BatchTaskResultDto>(createTaskDtos.size());
+                    for (int index = 0; index < createTaskDtos.size(); index++) {
+                        final var title = createTaskDtos.get(index).title();
+                        final var task = created.remove(title);
+                        results.add(task == null
+                                ? BatchTaskResultDto.conflict(index, title)
+                                : BatchTaskResultDto.created(index, task));
+                    }
+                    return results;
+                }));
     }
 
-    @Transactional
-    @CacheEvict(value = "tasks", allEntries = true)
-    public Mono<TaskDto> updateTask(final UUID taskId, final UpdateTaskDto updateTaskDto) {
-        return taskRepository.findById(taskId)
-                .switchIfEmpty(Mono.error(new TaskMissingException()))
-                .map(task -> task.update(updateTaskDto))
-                .flatMap(taskRepository::save)
-                .map(TaskDto::of);
+    /**
+     * Updates the task in a single statement, provided it is still in {@code version} when one is
+     * given.
+     */
+    public Mono<TaskDto> updateTask(
+            final UUID taskId,
+            @Nullable final Integer version,
+            final UpdateTaskDto updateTaskDto
+    ) {
+        return metrics.timed("updateTask", write(() -> taskRepository.updateIfVersion(
+                        taskId,
+                        version,
+                        updateTaskDto.title(),
+                        updateTaskDto.description(),
+                        updateTaskDto.dueDate())
+                .onErrorMap(DuplicateKeyException.class, TaskAlreadyExistException::new)
+                .collectList()
+                .flatMap(revisions -> {
+                    if (revisions.isEmpty()) {
+                        return this.<TaskWriteCoalescer.Write>missingOrStale(taskId);
+                    }
+                    final var updatedTask = revisions.stream()
+                            .max(Comparator.comparingInt(Task::version))
+                            .orElseThrow();
+                    return Mono.just(new TaskWriteCoalescer.Write(TaskDto.of(updatedTask), revisions));
+                })));
     }
 
-    @Transactional
-    @CacheEvict(value = "tasks", allEntries = true)
-    public Mono<TaskDto> deleteTask(final UUID taskId) {
-        return taskRepository.findById(taskId)
-                .switchIfEmpty(Mono.error(new TaskMissingException()))
-                .flatMap(task -> taskRepository.delete(task)
-                        .thenReturn(task))
-                .map(TaskDto::of);
+    /**
+     * The task, read where listings are unless the caller is pinned to the primary.
+     */
+    public Mono<TaskDto> fetchTask(final UUID taskId) {
+        return metrics.timed("fetchTask", taskRepository.findById(taskId)
+                .map(TaskDto::of)
+                .switchIfEmpty(Mono.error(TaskMissingException::new))
+                .contextWrite(ReadRouting.readOnly()));
+    }
+
+    /**
+     * Deletes the task in a single statement, provided it is still in {@code version} when one is
+     * given.
+     */
+    public Mono<TaskDto> deleteTask(final UUID taskId, @Nullable final Integer version) {
+        return metrics.timed("deleteTask", write(() -> taskRepository.deleteIfVersion(taskId, version)
+                .switchIfEmpty(Mono.defer(() -> this.<Task>missingOrStale(taskId)))
+                .map(task -> new TaskWriteCoalescer.Write(TaskDto.of(task), List.of(task)))));
+    }
+
+    /**
+     * Runs the statements of a single task write, through the {@link TaskWriteCoalescer} when it
+     * is enabled, then invalidates the listings of the tasks it touched.
+     */
+    private Mono<TaskDto> write(Supplier<Mono<TaskWriteCoalescer.Write>> statements) {
+        if (taskWriteCoalescer.enabled()) {
+            return taskWriteCoalescer.submit(statements);
+        }
+        return Mono.defer(statements)
+                .flatMap(write -> taskCache.invalidateAfterCommit(write.tasks())
+                        .thenReturn(write.result()));
+    }
+
+    /**
+     * Explains why a conditional write matched no row, only paying for the extra round trip on
+     * that path.
+     */
+    private <T> Mono<T> missingOrStale(UUID taskId) {
+        return taskRepository.existsById(taskId)
+                .flatMap(exists -> Mono.error(exists
+                        ? new TaskVersionMismatchException()
+                        : new TaskMissingException()));
     }
 }
@@ -0,0 +1,257 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskWriteProperties;
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskAlreadyExistException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskMissingException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskVersionMismatchException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskWritesOverloadedException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskWritesStoppedException;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Gathers task writes arriving within {@link TaskWriteProperties#window()} of each other, up to
+ * {@link TaskWriteProperties#maxBatch()}, and runs their statements back to back in one
+ * transaction on one connection, invalidating the listings they touched once on commit. Each
+ * caller still completes with the outcome of its own write.
+ * <p>
+ * A write that is rejected without failing a statement, such as an update of a stale version,
+ * only fails its own caller. A statement that fails aborts the transaction, in which case the
+ * batch is rolled back and its writes are run again one by one.
+ * <p>
+ * At most {@link TaskWriteProperties#maxPending()} writes wait for a batch, further writes fail
+ * with {@link TaskWritesOverloadedException} until the queue drains. Statements run on the
+ * batch's subscription, with the Reactor context of their own caller under that of the batch's
+ * transaction.
+ * <p>
+ * Writes waiting when batching stops fail with {@link TaskWritesStoppedException}, as do those
+ * submitted until it starts again.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class TaskWriteCoalescer implements SmartLifecycle {
+
+    /**
+     * How long a caller may spin while another one is queueing, before giving up as overloaded.
+     */
+    private static final Duration EMIT_CONTENTION = Duration.ofMillis(1);
+
+    private final Logger log = LoggerFactory.getLogger(TaskWriteCoalescer.class);
+
+    private final TaskWriteProperties properties;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final TaskCache taskCache;
+
+    private final DistributionSummary batchSizes;
+
+    private final Timer batches;
+
+    private final Counter fallbacks;
+
+    private volatile Sinks.Many<PendingWrite> writes;
+
+    private volatile Disposable subscription;
+
+    public TaskWriteCoalescer(
+            TaskWriteProperties properties,
+            TransactionalOperator transactionalOperator,
+            TaskCache taskCache,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.transactionalOperator = transactionalOperator;
+        this.taskCache = taskCache;
+        this.batchSizes = DistributionSummary.builder("task.writes.batch.size")
+                .description("Task writes sharing a transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batches = Timer.builder("task.writes.batch")
+                .description("Time taken to run a batch of task writes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("task.writes.batch.fallbacks")
+                .description("Batches rolled back and run again one write at a time")
+                .register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Queues a write for the next batch. {@code statements} is subscribed to within the batch's
+     * transaction and must not invalidate the cache itself.
+     */
+    Mono<TaskDto> submit(Supplier<Mono<Write>> statements) {
+        return Mono.deferContextual(context -> {
+            final var current = writes;
+            if (current == null) {
+                return Mono.error(new TaskWritesStoppedException());
+            }
+
+            final var result = Sinks.<TaskDto>one();
+            try {
+                // another caller queueing at the same instant is done within microseconds
+                current.emitNext(new PendingWrite(statements, context, result),
+                        Sinks.EmitFailureHandler.busyLooping(EMIT_CONTENTION));
+            } catch (Sinks.EmissionException e) {
+                return Mono.error(switch (e.getReason()) {
+                    case FAIL_OVERFLOW, FAIL_NON_SERIALIZED -> new TaskWritesOverloadedException();
+                    default -> new TaskWritesStoppedException();
+                });
+            }
+            return result.asMono();
+        });
+    }
+
+    private Mono<Void> run(List<PendingWrite> batch) {
+        batchSizes.record(batch.size());
+        final var sample = Timer.start();
+
+        return transactionalOperator.transactional(Flux.fromIterable(batch)
+                        .concatMap(pending -> pending.run()
+                                .map(Outcome::of)
+                                .onErrorResume(TaskWriteCoalescer::isRejection, error -> Mono.just(Outcome.of(error))))
+                        .collectList()
+                        .flatMap(outcomes -> taskCache.invalidateAfterCommit(outcomes.stream()
+                                        .filter(outcome -> outcome.write() != null)
+                                        .flatMap(outcome -> outcome.write().tasks().stream())
+                                        .toList())
+                                .thenReturn(outcomes)))
+                .doOnNext(outcomes -> {
+                    for (int index = 0; index < batch.size(); index++) {
+                        outcomes.get(index).complete(batch.get(index).result());
+                    }
+                })
+                .then()
+                .onErrorResume(error -> {
+                    log.debug("Batch of {} task writes failed, running them one by one", batch.size(), error);
+                    fallbacks.increment();
+                    return Flux.fromIterable(batch)
+                            .concatMap(this::runAlone)
+                            .then();
+                })
+                .doOnCancel(() -> batch.forEach(PendingWrite::stopped))
+                .doFinally(signal -> sample.stop(batches));
+    }
+
+    private Mono<Void> runAlone(PendingWrite pending) {
+        return pending.run()
+                .flatMap(write -> taskCache.invalidateAfterCommit(write.tasks())
+                        .thenReturn(Outcome.of(write)))
+                .onErrorResume(error -> Mono.just(Outcome.of(error)))
+                .doOnNext(outcome -> outcome.complete(pending.result()))
+                .then();
+    }
+
+    /**
+     * Whether {@code error} rejects a write without having failed a statement, leaving the
+     * transaction usable for the rest of the batch.
+     */
+    private static boolean isRejection(Throwable error) {
+        return error.getCause() == null && (error instanceof TaskAlreadyExistException
+                || error instanceof TaskMissingException
+                || error instanceof TaskVersionMismatchException);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled()) {
+            return;
+        }
+        // a unicast sink takes a single subscriber, so every start gets its own
+        final var current = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<PendingWrite>get(properties.maxPending()).get());
+        // fair backpressure leaves writes in the bounded queue while every batch slot is busy,
+        // instead of buffering them past it
+        subscription = current.asFlux()
+                .bufferTimeout(properties.maxBatch(), properties.window(), true)
+                .flatMap(this::run, properties.concurrency())
+                // writes still queued, or buffered into a batch, once stopped
+                .doOnDiscard(PendingWrite.class, PendingWrite::stopped)
+                .subscribe();
+        writes = current;
+    }
+
+    @Override
+    public void stop() {
+        writes = null;
+        final var current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+        subscription = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscription != null;
+    }
+
+    /**
+     * The outcome of a single task write.
+     *
+     * @param result what the caller receives
+     * @param tasks  the task revisions whose listings the write invalidates
+     */
+    record Write(TaskDto result, List<Task> tasks) {
+    }
+
+    private record PendingWrite(Supplier<Mono<Write>> statements, ContextView context, Sinks.One<TaskDto> result) {
+
+        /**
+         * The statements, seeing the caller's context and the batch's transaction over it.
+         */
+        Mono<Write> run() {
+            return Mono.defer(statements)
+                    .contextWrite(batch -> Context.of(context).putAll(batch));
+        }
+
+        void stopped() {
+            result.tryEmitError(new TaskWritesStoppedException());
+        }
+    }
+
+    private record Outcome(Write write, Throwable error) {
+
+        static Outcome of(Write write) {
+            return new Outcome(write, null);
+        }
+
+        static Outcome of(Throwable error) {
+            return new Outcome(null, error);
+        }
+
+        void complete(Sinks.One<TaskDto> result) {
+            if (write != null) {
+                result.tryEmitValue(write.result());
+            } else {
+                result.tryEmitError(error);
+            }
+        }
+    }
+}
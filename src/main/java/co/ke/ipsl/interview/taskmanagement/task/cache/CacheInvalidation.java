@@ -0,0 +1,32 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Message broadcast to every application node when cached values change.
+ *
+ * @param cache  the cache concerned, absent for {@link Type#BUCKETS}
+ * @param keys   the evicted keys, or the bumped generation buckets
+ * @param origin the node that published it, set by {@link CacheInvalidationBus#publish}
+ * @author Denis Gitonga
+ */
+public record CacheInvalidation(
+        @Nullable
+        String cache,
+
+        Type type,
+
+        List<String> keys,
+
+        @Nullable
+        String origin
+) {
+
+    public enum Type {
+        EVICT,
+        CLEAR,
+        BUCKETS
+    }
+}
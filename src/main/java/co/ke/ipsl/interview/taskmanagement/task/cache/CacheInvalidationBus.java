@@ -0,0 +1,112 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Redis pub/sub channel through which nodes tell each other to drop in-process cache entries.
+ * Nodes also receive their own messages, which handlers must tolerate or skip as
+ * {@link #isLocal(CacheInvalidation) local}.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    static final ChannelTopic CHANNEL = ChannelTopic.of("tasks:cache:invalidation");
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper;
+
+    private final List<Consumer<CacheInvalidation>> handlers = new CopyOnWriteArrayList<>();
+
+    private final String node = UUID.randomUUID().toString();
+
+    private volatile Disposable subscription;
+
+    public CacheInvalidationBus(
+            ReactiveStringRedisTemplate redisTemplate,
+            ReactiveRedisMessageListenerContainer listenerContainer,
+            ObjectMapper objectMapper
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+    }
+
+    public void register(Consumer<CacheInvalidation> handler) {
+        handlers.add(handler);
+    }
+
+    /**
+     * Whether {@code invalidation} was published by this node.
+     */
+    public boolean isLocal(CacheInvalidation invalidation) {
+        return node.equals(invalidation.origin());
+    }
+
+    public Mono<Void> publish(CacheInvalidation invalidation) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(new CacheInvalidation(
+                        invalidation.cache(), invalidation.type(), invalidation.keys(), node)))
+                .flatMap(message -> redisTemplate.convertAndSend(CHANNEL.getTopic(), message))
+                .doOnError(e -> log.warn("Failed to publish cache invalidation {}", invalidation, e))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    @Override
+    public void start() {
+        subscription = listenerContainer.receive(CHANNEL)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Cache invalidation subscription lost, resubscribing",
+                                signal.failure())))
+                .subscribe(message -> dispatch(message.getMessage()));
+    }
+
+    @Override
+    public void stop() {
+        final var current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+        subscription = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscription != null;
+    }
+
+    private void dispatch(String message) {
+        final CacheInvalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message, CacheInvalidation.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation {}", message, e);
+            return;
+        }
+        handlers.forEach(handler -> handler.accept(invalidation));
+    }
+}
@@ -0,0 +1,164 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.database.ReplicaLag;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Read-through access to the task caches keyed by {@link TaskCacheGenerations generation}, in
+ * place of {@code @Cacheable}/{@code @CacheEvict}: resolving the generation is itself a reactive
+ * lookup, which a {@code KeyGenerator} cannot perform.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class TaskCache {
+
+    public static final String TASKS = "tasks";
+
+    public static final String TASK_COUNTS = "task-counts";
+
+    public static final String TASK_RESPONSES = "task-responses";
+
+    private final CacheManager cacheManager;
+
+    private final TaskCacheGenerations generations;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final TaskCacheWarmer warmer;
+
+    private final ReplicaLag replicaLag;
+
+    private final Map<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public TaskCache(
+            CacheManager cacheManager,
+            TaskCacheGenerations generations,
+            CacheInvalidationBus invalidationBus,
+            TaskCacheWarmer warmer,
+            ReplicaLag replicaLag
+    ) {
+        this.cacheManager = cacheManager;
+        this.generations = generations;
+        this.invalidationBus = invalidationBus;
+        this.warmer = warmer;
+        this.replicaLag = replicaLag;
+
+        invalidationBus.register(invalidation -> {
+            if (invalidation.type() == CacheInvalidation.Type.BUCKETS) {
+                forget(invalidation.keys());
+            }
+        });
+    }
+
+    /**
+     * Returns the value cached for {@code filterTaskDto} and {@code discriminator} in the current
+     * generation, loading and storing it on a miss. What is cached is the value {@code loader}
+     * resolves to, never the publisher itself. {@code loader} runs with the caller's context,
+     * read only as long as the replica caught up with the primary, which was done writing the
+     * current generation by then: a replica lagging behind would have the cache serve a stale
+     * value, under that generation, to every node until it expires.
+     */
+    public <T> Mono<T> get(
+            String cacheName,
+            FilterTaskDto filterTaskDto,
+            Object discriminator,
+            Supplier<Mono<T>> loader
+    ) {
+        final var cache = cache(cacheName);
+        final var tracked = warmer.track(cacheName, filterTaskDto, discriminator, loader);
+        // the loader is subscribed to by the cache, detached from the caller's context otherwise
+        return Mono.deferContextual(caller -> generations.namespace(filterTaskDto)
+                .flatMap(namespace -> {
+                    final var key = key(namespace, filterTaskDto, discriminator);
+                    final var loaded = new AtomicBoolean();
+                    return singleFlight(cacheName + "::" + key, () -> Mono.fromFuture(() -> cache.retrieve(key,
+                            () -> {
+                                loaded.set(true);
+                                return replicaLag.routing()
+                                        .flatMap(routing -> loader.get().contextWrite(routing))
+                                        .contextWrite(caller)
+                                        .toFuture();
+                            })))
+                            .doOnSuccess(value -> warmer.served(tracked, loaded.get()));
+                }));
+    }
+
+    static String key(String namespace, FilterTaskDto filterTaskDto, Object discriminator) {
+        return namespace + "::" + filterTaskDto + "::" + discriminator;
+    }
+
+    /**
+     * Coalesces concurrent lookups of the same key on this node: the first caller performs the
+     * lookup, and the load on a miss, while callers arriving before it completes subscribe to its
+     * outcome instead of issuing identical queries.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Mono<T> singleFlight(String key, Supplier<Mono<T>> lookup) {
+        return Mono.defer(() -> {
+            final var flight = new AtomicReference<Mono<Object>>();
+            return (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+                final var shared = ((Mono<Object>) lookup.get())
+                        .doFinally(signal -> inFlight.remove(k, flight.get()))
+                        .cache();
+                flight.set(shared);
+                return shared;
+            });
+        });
+    }
+
+    /**
+     * Invalidates the listings affected by {@code tasks} once the surrounding transaction has
+     * committed, so that no reader can cache uncommitted state under the new generation.
+     */
+    public Mono<Void> invalidateAfterCommit(Collection<Task> tasks) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .doOnNext(manager -> manager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return invalidate(tasks);
+                    }
+                }))
+                .then()
+                .onErrorResume(NoTransactionException.class, e -> invalidate(tasks));
+    }
+
+    private Mono<Void> invalidate(Collection<Task> tasks) {
+        return generations.bump(tasks)
+                .flatMap(buckets -> {
+                    forget(buckets);
+                    return invalidationBus.publish(new CacheInvalidation(
+                            null, CacheInvalidation.Type.BUCKETS, List.copyOf(buckets), null));
+                });
+    }
+
+    private void forget(Collection<String> buckets) {
+        generations.forget(buckets);
+        if (cacheManager instanceof TwoTierCacheManager twoTierCacheManager) {
+            twoTierCacheManager.evictNearIf(key -> TaskCacheGenerations.dependsOn(key, buckets));
+        }
+        warmer.invalidated(buckets);
+    }
+
+    private Cache cache(String cacheName) {
+        return Objects.requireNonNull(cacheManager.getCache(cacheName),
+                () -> "No cache configured with name " + cacheName);
+    }
+}
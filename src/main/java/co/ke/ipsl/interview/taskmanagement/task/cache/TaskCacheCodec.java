@@ -0,0 +1,328 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.task.dto.CursorPage;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of cached task pages. Uuids are written as two longs, dates as epoch
+ * days and strings as length prefixed utf-8, with no type metadata. Values it does not know are
+ * handed to {@code fallback}; a payload starting with anything but {@link #MAGIC} is read by
+ * {@code fallback} too, so entries written before switching codecs remain readable.
+ * <p>
+ * Payloads carry a schema version. One this codec does not understand reads as a cache miss,
+ * which keeps nodes of different versions from failing on each other's entries.
+ *
+ * @author Denis Gitonga
+ */
+public class TaskCacheCodec implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xB7;
+
+    static final byte VERSION = 2;
+
+    private static final byte PAGE = 1;
+
+    private static final byte SLICE = 2;
+
+    private static final byte CURSOR_PAGE = 3;
+
+    private static final byte LONG = 4;
+
+    private static final int ID = 1;
+
+    private static final int TITLE = 1 << 1;
+
+    private static final int DESCRIPTION = 1 << 2;
+
+    private static final int DUE_DATE = 1 << 3;
+
+    private static final int TASK_VERSION = 1 << 4;
+
+    private final RedisSerializer<Object> fallback;
+
+    public TaskCacheCodec(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof Page<?> page && isTasks(page.getContent())) {
+            final var output = header(PAGE, page.getContent());
+            writePageable(output, page.getPageable());
+            output.writeLong(page.getTotalElements());
+            writeTasks(output, page.getContent());
+            return output.toByteArray();
+        }
+        if (value instanceof Slice<?> slice && isTasks(slice.getContent())) {
+            final var output = header(SLICE, slice.getContent());
+            writePageable(output, slice.getPageable());
+            output.writeBoolean(slice.hasNext());
+            writeTasks(output, slice.getContent());
+            return output.toByteArray();
+        }
+        if (value instanceof CursorPage<?> page && isTasks(page.content())) {
+            final var output = header(CURSOR_PAGE, page.content());
+            output.writeInt(page.size());
+            output.writeNullableString(page.nextCursor());
+            writeTasks(output, page.content());
+            return output.toByteArray();
+        }
+        if (value instanceof Long number) {
+            final var output = header(LONG, List.of());
+            output.writeLong(number);
+            return output.toByteArray();
+        }
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < 3 || bytes[1] != VERSION) {
+            return null;
+        }
+
+        final var input = new Input(bytes, 3);
+        try {
+            return switch (bytes[2]) {
+                case PAGE -> {
+                    final var pageable = readPageable(input);
+                    final var total = input.readLong();
+                    yield new PageImpl<>(readTasks(input), pageable, total);
+                }
+                case SLICE -> {
+                    final var pageable = readPageable(input);
+                    final var hasNext = input.readBoolean();
+                    yield new SliceImpl<>(readTasks(input), pageable, hasNext);
+                }
+                case CURSOR_PAGE -> {
+                    final var size = input.readInt();
+                    final var nextCursor = input.readNullableString();
+                    yield new CursorPage<>(readTasks(input), size, nextCursor);
+                }
+                case LONG -> input.readLong();
+                default -> null;
+            };
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated task cache payload", e);
+        }
+    }
+
+    private static boolean isTasks(List<?> content) {
+        for (var element : content) {
+            if (!(element instanceof TaskDto)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Output header(byte type, List<?> content) {
+        final var output = new Output(32 + content.size() * 128);
+        output.writeByte(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte(type);
+        return output;
+    }
+
+    private static void writePageable(Output output, Pageable pageable) {
+        output.writeBoolean(pageable.isPaged());
+        if (pageable.isUnpaged()) {
+            return;
+        }
+        output.writeInt(pageable.getPageNumber());
+        output.writeInt(pageable.getPageSize());
+
+        final var orders = pageable.getSort().toList();
+        output.writeInt(orders.size());
+        for (var order : orders) {
+            output.writeString(order.getProperty());
+            output.writeBoolean(order.isAscending());
+        }
+    }
+
+    private static Pageable readPageable(Input input) {
+        if (!input.readBoolean()) {
+            return Pageable.unpaged();
+        }
+        final var page = input.readInt();
+        final var size = input.readInt();
+
+        final var orders = new Sort.Order[input.readInt()];
+        for (int index = 0; index < orders.length; index++) {
+            final var property = input.readString();
+            orders[index] = input.readBoolean() ? Sort.Order.asc(property) : Sort.Order.desc(property);
+        }
+        return PageRequest.of(page, size, Sort.by(orders));
+    }
+
+    private static void writeTasks(Output output, List<?> tasks) {
+        output.writeInt(tasks.size());
+        for (var element : tasks) {
+            final var task = (TaskDto) element;
+            final var fields = (task.id() == null ? 0 : ID)
+                    | (task.title() == null ? 0 : TITLE)
+                    | (task.description() == null ? 0 : DESCRIPTION)
+                    | (task.dueDate() == null ? 0 : DUE_DATE)
+                    | (task.version() == null ? 0 : TASK_VERSION);
+            output.writeByte((byte) fields);
+
+            if (task.id() != null) {
+                output.writeLong(task.id().getMostSignificantBits());
+                output.writeLong(task.id().getLeastSignificantBits());
+            }
+            if (task.title() != null) {
+                output.writeString(task.title());
+            }
+            if (task.description() != null) {
+                output.writeString(task.description());
+            }
+            if (task.dueDate() != null) {
+                output.writeInt((int) task.dueDate().toEpochDay());
+            }
+            if (task.version() != null) {
+                output.writeInt(task.version());
+            }
+        }
+    }
+
+    private static List<TaskDto> readTasks(Input input) {
+        final var count = input.readInt();
+        final var tasks = new ArrayList<TaskDto>(count);
+        for (int index = 0; index < count; index++) {
+            final var fields = input.readByte();
+            tasks.add(new TaskDto(
+                    (fields & ID) == 0 ? null : new UUID(input.readLong(), input.readLong()),
+                    (fields & TITLE) == 0 ? null : input.readString(),
+                    (fields & DESCRIPTION) == 0 ? null : input.readString(),
+                    (fields & DUE_DATE) == 0 ? null : LocalDate.ofEpochDay(input.readInt()),
+                    (fields & TASK_VERSION) == 0 ? null : input.readInt()
+            ));
+        }
+        return tasks;
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+
+        private int position;
+
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void writeBoolean(boolean value) {
+            writeByte((byte) (value ? 1 : 0));
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeString(String value) {
+            final var bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeNullableString(String value) {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeString(value);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        Input(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        byte readByte() {
+            if (position >= buffer.length) {
+                throw new IndexOutOfBoundsException(position);
+            }
+            return buffer[position++];
+        }
+
+        boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        int readInt() {
+            return (readByte() & 0xFF) << 24
+                    | (readByte() & 0xFF) << 16
+                    | (readByte() & 0xFF) << 8
+                    | (readByte() & 0xFF);
+        }
+
+        long readLong() {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        String readString() {
+            final var length = readInt();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IndexOutOfBoundsException(position + length);
+            }
+            final var value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        String readNullableString() {
+            return readBoolean() ? readString() : null;
+        }
+    }
+}
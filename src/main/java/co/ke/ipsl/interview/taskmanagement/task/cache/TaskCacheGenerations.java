@@ -0,0 +1,189 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskCacheProperties;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Generation counters versioning the task caches. Every cache key is prefixed with the
+ * generations of the buckets its filter depends on, so a write invalidates the affected
+ * listings by incrementing a handful of counters instead of sweeping the keyspace. Entries of
+ * older generations are never read again and expire with their TTL.
+ * <p>
+ * A listing filtered by title only depends on tasks holding that title, one filtered by due date
+ * only on tasks due that day; anything else depends on the {@code all} bucket, which every write
+ * bumps.
+ * <p>
+ * Counters start from a random base, set when they are first read or bumped, rather than from
+ * zero: a counter that expired or was lost with redis starts over from another base, so neither
+ * cache keys nor entity tags of its previous lifetime can be reached again.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class TaskCacheGenerations {
+
+    static final String ALL = "all";
+
+    private static final String KEY_PREFIX = "tasks:generation:";
+
+    /**
+     * Must outlive any cache entry, an idle counter expiring only costs its listings a reload.
+     */
+    private static final Duration GENERATION_TTL = Duration.ofDays(1);
+
+    private final Logger log = LoggerFactory.getLogger(TaskCacheGenerations.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    /**
+     * Generations recently read from redis. Entries are dropped as soon as an invalidation for
+     * their bucket is seen, the TTL only bounds staleness should a broadcast be lost.
+     */
+    private final Cache<String, String> localGenerations;
+
+    private final AtomicLong forgotten = new AtomicLong();
+
+    public TaskCacheGenerations(ReactiveStringRedisTemplate redisTemplate, TaskCacheProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.localGenerations = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(properties.generationTtl())
+                .build();
+    }
+
+    public List<String> buckets(FilterTaskDto filterTaskDto) {
+        if (filterTaskDto.title() != null) {
+            return List.of("title:" + filterTaskDto.title());
+        }
+        if (filterTaskDto.dueDate() != null) {
+            return List.of("due:" + filterTaskDto.dueDate());
+        }
+        return List.of(ALL);
+    }
+
+    public Collection<String> buckets(Collection<Task> tasks) {
+        final var buckets = new LinkedHashSet<String>();
+        buckets.add(ALL);
+        tasks.forEach(task -> {
+            buckets.add("title:" + task.title());
+            buckets.add("due:" + task.dueDate());
+        });
+        return buckets;
+    }
+
+    /**
+     * Resolves the current generations of the buckets {@code filterTaskDto} depends on, rendered
+     * as a cache key prefix such as {@code due:2024-03-20=4}.
+     */
+    public Mono<String> namespace(FilterTaskDto filterTaskDto) {
+        final var buckets = buckets(filterTaskDto);
+        final var known = localGenerations.getAllPresent(buckets);
+        if (known.size() == buckets.size()) {
+            return Mono.just(render(buckets, known));
+        }
+
+        final var forgottenBefore = forgotten.get();
+        final var keys = buckets.stream().map(KEY_PREFIX::concat).toList();
+        return redisTemplate.opsForValue()
+                .multiGet(keys)
+                .flatMap(values -> values.contains(null) ? initialize(keys, values) : Mono.just(values))
+                .map(values -> {
+                    final var generations = new HashMap<String, String>();
+                    for (int index = 0; index < buckets.size(); index++) {
+                        generations.put(buckets.get(index), values.get(index));
+                    }
+                    // a generation read before an invalidation arrived may already be stale
+                    if (forgotten.get() == forgottenBefore) {
+                        localGenerations.putAll(generations);
+                    }
+                    return render(buckets, generations);
+                });
+    }
+
+    /**
+     * Bumps the buckets of every given task state, both before and after a write, so listings
+     * the task left and listings it joined are invalidated. Emits the bumped buckets.
+     */
+    public Mono<Collection<String>> bump(Collection<Task> tasks) {
+        final var buckets = buckets(tasks);
+        return Flux.fromIterable(buckets)
+                .map(KEY_PREFIX::concat)
+                .flatMap(key -> redisTemplate.opsForValue().setIfAbsent(key, base(), GENERATION_TTL)
+                        .then(redisTemplate.opsForValue().increment(key))
+                        .then(redisTemplate.expire(key, GENERATION_TTL)))
+                .then()
+                .thenReturn(buckets)
+                .doOnError(e -> log.warn("Failed to bump task cache generations", e))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * Starts the missing counters among {@code keys} from a random base, keeping those another
+     * node started first.
+     */
+    private Mono<List<String>> initialize(List<String> keys, List<String> values) {
+        return Flux.range(0, keys.size())
+                .concatMap(index -> {
+                    if (values.get(index) != null) {
+                        return Mono.just(values.get(index));
+                    }
+                    final var base = base();
+                    return redisTemplate.opsForValue().setIfAbsent(keys.get(index), base, GENERATION_TTL)
+                            .then(redisTemplate.opsForValue().get(keys.get(index)))
+                            .defaultIfEmpty(base);
+                })
+                .collectList();
+    }
+
+    /**
+     * A random counter base, leaving room for as many increments as redis can hold.
+     */
+    private static String base() {
+        return Long.toString(ThreadLocalRandom.current().nextLong(1L << 52));
+    }
+
+    /**
+     * Drops the locally known generations of {@code buckets}, typically on an invalidation
+     * broadcast by another node.
+     */
+    public void forget(Collection<String> buckets) {
+        forgotten.incrementAndGet();
+        localGenerations.invalidateAll(buckets);
+    }
+
+    /**
+     * Whether a key built from a {@link #namespace(FilterTaskDto) namespace} depends on any of
+     * {@code buckets}.
+     */
+    public static boolean dependsOn(Object key, Collection<String> buckets) {
+        final var value = key.toString();
+        return buckets.stream()
+                .map(bucket -> bucket + "=")
+                .anyMatch(prefix -> value.startsWith(prefix) || value.contains("|" + prefix));
+    }
+
+    private static String render(List<String> buckets, Map<String, String> generations) {
+        return buckets.stream()
+                .map(bucket -> bucket + "=" + generations.get(bucket))
+                .collect(Collectors.joining("|"));
+    }
+}
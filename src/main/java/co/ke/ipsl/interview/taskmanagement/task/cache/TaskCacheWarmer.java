@@ -0,0 +1,281 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskCacheProperties;
+import co.ke.ipsl.interview.taskmanagement.database.ReadRouting;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the most requested listings warm. Every lookup through {@link TaskCache} is tracked, and
+ * the {@link TaskCacheProperties.Warming#hotKeys()} most requested of late are recomputed in the
+ * background shortly after an invalidation touched them, and shortly before their TTL runs out,
+ * so that their readers keep hitting the cache.
+ * <p>
+ * Recomputed listings are read from the primary: right after a write a replica may not have it
+ * yet, and the stale listing would be cached under the new generation.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class TaskCacheWarmer implements SmartLifecycle {
+
+    /**
+     * How often the hot listings are ranked again, request counts decaying by half each time.
+     */
+    private static final Duration RANKING_INTERVAL = Duration.ofSeconds(10);
+
+    private final Logger log = LoggerFactory.getLogger(TaskCacheWarmer.class);
+
+    private final CacheManager cacheManager;
+
+    private final TaskCacheGenerations generations;
+
+    private final TaskCacheProperties.Warming properties;
+
+    private final Duration ttl;
+
+    private final Cache<String, Tracked> tracked;
+
+    private final Set<Tracked> pending = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Counter> refreshes = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter warmHits;
+
+    private final Counter warmMisses;
+
+    private volatile List<Tracked> hot = List.of();
+
+    private volatile Disposable subscription;
+
+    public TaskCacheWarmer(
+            CacheManager cacheManager,
+            TaskCacheGenerations generations,
+            TaskCacheProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.cacheManager = cacheManager;
+        this.generations = generations;
+        this.properties = properties.warming();
+        this.ttl = properties.ttl();
+        this.tracked = Caffeine.newBuilder()
+                .maximumSize(this.properties.trackedKeys())
+                .build();
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("task.cache.warm.keys", this, warmer -> warmer.hot.size())
+                .description("Listings kept warm")
+                .register(meterRegistry);
+        this.warmHits = warmRequests(meterRegistry, "hit");
+        this.warmMisses = warmRequests(meterRegistry, "miss");
+    }
+
+    /**
+     * Counts a lookup of a listing, returning its tracking entry, or null when warming is
+     * disabled. {@code loader} is kept to recompute the listing.
+     */
+    @Nullable
+    Tracked track(String cacheName, FilterTaskDto filterTaskDto, Object discriminator, Supplier<? extends Mono<?>> loader) {
+        if (!properties.enabled()) {
+            return null;
+        }
+        final var entry = tracked.get(cacheName + "::" + filterTaskDto + "::" + discriminator,
+                key -> new Tracked(cacheName, filterTaskDto, discriminator, System.nanoTime()));
+        entry.loader = loader;
+        entry.requests.increment();
+        return entry;
+    }
+
+    /**
+     * Records whether a lookup was served from the cache, counting towards the hit rate of warm
+     * listings when {@code entry} is one.
+     */
+    void served(@Nullable Tracked entry, boolean loaded) {
+        if (entry == null) {
+            return;
+        }
+        if (loaded) {
+            entry.loadedAt = System.nanoTime();
+        }
+        if (entry.hot) {
+            (loaded ? warmMisses : warmHits).increment();
+        }
+    }
+
+    /**
+     * Schedules the warm listings depending on {@code buckets} for recomputation.
+     */
+    void invalidated(Collection<String> buckets) {
+        for (var entry : hot) {
+            if (generations.buckets(entry.filterTaskDto).stream().anyMatch(buckets::contains)) {
+                entry.reason = "invalidated";
+                pending.add(entry);
+            }
+        }
+    }
+
+    void rank() {
+        for (var entry : tracked.asMap().values()) {
+            entry.score = entry.score / 2 + entry.requests.sumThenReset();
+        }
+        final var ranked = tracked.asMap().values().stream()
+                .filter(entry -> entry.score > 0)
+                .sorted(Comparator.comparingLong((Tracked entry) -> entry.score).reversed())
+                .limit(properties.hotKeys())
+                .toList();
+        hot.forEach(entry -> entry.hot = false);
+        ranked.forEach(entry -> entry.hot = true);
+        hot = ranked;
+    }
+
+    private List<Tracked> due() {
+        // refreshing any earlier than half way through the TTL gains next to nothing
+        final var refreshAfter = Math.max(ttl.minus(properties.refreshAhead()).toNanos(), ttl.toNanos() / 2);
+        final var now = System.nanoTime();
+        for (var entry : hot) {
+            if (now - entry.loadedAt >= refreshAfter) {
+                entry.reason = "expiring";
+                pending.add(entry);
+            }
+        }
+
+        final var due = List.copyOf(pending);
+        pending.removeAll(due);
+        return due;
+    }
+
+    /**
+     * Recomputes the warm listings invalidated or about to expire since the last call.
+     */
+    Mono<Void> refreshDue() {
+        return Flux.fromIterable(due())
+                .flatMap(this::refresh, properties.concurrency())
+                .then();
+    }
+
+    private Mono<Void> refresh(Tracked entry) {
+        final var cache = Objects.requireNonNull(cacheManager.getCache(entry.cacheName));
+        final var loader = entry.loader;
+        final var reason = entry.reason;
+        return generations.namespace(entry.filterTaskDto)
+                .flatMap(namespace -> loader.get()
+                        .contextWrite(ReadRouting.pinToPrimary())
+                        // put is blocking, unlike retrieve, but overwrites an entry about to expire.
+                        // Other nodes drop their near copy, this one keeps the value put
+                        .flatMap(value -> Mono.fromRunnable(() -> cache.put(
+                                        TaskCache.key(namespace, entry.filterTaskDto, entry.discriminator), value))
+                                .subscribeOn(Schedulers.boundedElastic())))
+                .doOnSuccess(done -> {
+                    entry.loadedAt = System.nanoTime();
+                    refreshes.computeIfAbsent(reason, this::refreshCounter).increment();
+                })
+                .onErrorResume(error -> {
+                    // not retried before its next refresh is due, readers loading it meanwhile
+                    entry.loadedAt = System.nanoTime();
+                    log.warn("Refreshing warm listing {} failed", entry.filterTaskDto, error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        subscription = Disposables.composite(
+                Flux.interval(RANKING_INTERVAL)
+                        .subscribe(tick -> rank()),
+                Flux.interval(properties.delay())
+                        .onBackpressureDrop()
+                        .concatMap(tick -> refreshDue(), 1)
+                        .subscribe());
+    }
+
+    @Override
+    public void stop() {
+        final var current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+        subscription = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscription != null;
+    }
+
+    private Counter refreshCounter(String reason) {
+        return Counter.builder("task.cache.warm.refreshes")
+                .description("Warm listings recomputed in the background")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static Counter warmRequests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("task.cache.warm.requests")
+                .description("Lookups of warm listings")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A listing whose requests are tracked.
+     */
+    static final class Tracked {
+
+        private final String cacheName;
+
+        private final FilterTaskDto filterTaskDto;
+
+        private final Object discriminator;
+
+        private final LongAdder requests = new LongAdder();
+
+        private volatile Supplier<? extends Mono<?>> loader;
+
+        private volatile long loadedAt;
+
+        private volatile long score;
+
+        private volatile boolean hot;
+
+        private volatile String reason;
+
+        Tracked(String cacheName, FilterTaskDto filterTaskDto, Object discriminator, long loadedAt) {
+            this.cacheName = cacheName;
+            this.filterTaskDto = filterTaskDto;
+            this.discriminator = discriminator;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
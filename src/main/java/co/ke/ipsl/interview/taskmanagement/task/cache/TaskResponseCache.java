@@ -0,0 +1,230 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskFields;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nullable;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache.TASK_RESPONSES;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Caches listing responses as the bytes written to the wire, gzip encoded or not, so that a hit
+ * is wrapped into a {@link DataBuffer} as is instead of being decoded from redis and encoded to
+ * json again. Entries share the generations of the listing they render and are invalidated with
+ * it.
+ * <p>
+ * Responses are tagged with a strong entity tag derived from those generations, the request and
+ * a digest of the rendered rows, their versions included, which is cached along with the body. A
+ * conditional request whose listing has not changed since is answered {@code 304 Not Modified}
+ * without writing the body, usually off the near tier.
+ *
+ * @author Denis Gitonga
+ */
+@Component
+public class TaskResponseCache {
+
+    static final String GZIP = "gzip";
+
+    private static final String IDENTITY = "identity";
+
+    /**
+     * Length of the content digest cached ahead of each body.
+     */
+    private static final int DIGEST_LENGTH = 16;
+
+    /**
+     * Part of every entry key, so that entries of another layout, such as those of nodes still
+     * running a previous one, are never read as this one.
+     */
+    private static final int ENTRY_LAYOUT = 2;
+
+    /**
+     * Listings are readable by anyone, shared caches may keep them as long as they revalidate.
+     */
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private final TaskCache taskCache;
+
+    private final TaskCacheGenerations generations;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectMapper sparseObjectMapper;
+
+    public TaskResponseCache(TaskCache taskCache, TaskCacheGenerations generations, ObjectMapper objectMapper) {
+        this.taskCache = taskCache;
+        this.generations = generations;
+        this.objectMapper = objectMapper;
+        this.sparseObjectMapper = TaskFields.sparse(objectMapper);
+    }
+
+    /**
+     * Responds with the cached body of {@code request}, rendering what {@code loader} resolves to
+     * on a miss, or with {@code 304 Not Modified} when the exchange's {@code If-None-Match}
+     * still holds. {@code request} must identify everything the body depends on besides the
+     * filter, {@code fields} included.
+     */
+    public Mono<ResponseEntity<DataBuffer>> respond(
+            FilterTaskDto filterTaskDto,
+            Object request,
+            TaskFields fields,
+            ServerWebExchange exchange,
+            Supplier<? extends Mono<?>> loader
+    ) {
+        final var encoding = acceptsGzip(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING))
+                ? GZIP : IDENTITY;
+        final var key = List.of(request, encoding);
+        return generations.namespace(filterTaskDto)
+                .flatMap(namespace -> body(filterTaskDto, request, fields, encoding, loader)
+                        .map(entry -> {
+                            final var eTag = eTag(namespace, filterTaskDto, key, digest(entry), encoding);
+                            if (exchange.checkNotModified(eTag)) {
+                                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                        .cacheControl(CACHE_CONTROL)
+                                        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                                        .<DataBuffer>build();
+                            }
+
+                            final var length = entry.length - DIGEST_LENGTH;
+                            final var response = ResponseEntity.ok()
+                                    .contentType(APPLICATION_JSON)
+                                    .contentLength(length)
+                                    .eTag(eTag)
+                                    .cacheControl(CACHE_CONTROL)
+                                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+                            if (encoding.equals(GZIP)) {
+                                response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+                            }
+                            return response.body(exchange.getResponse().bufferFactory()
+                                    .wrap(ByteBuffer.wrap(entry, DIGEST_LENGTH, length)));
+                        }));
+    }
+
+    /**
+     * Caches the bodies of {@code request} in every encoding, as {@link #respond} would on a miss.
+     */
+    public Mono<Void> warm(
+            FilterTaskDto filterTaskDto,
+            Object request,
+            TaskFields fields,
+            Supplier<? extends Mono<?>> loader
+    ) {
+        return Flux.just(GZIP, IDENTITY)
+                .concatMap(encoding -> body(filterTaskDto, request, fields, encoding, loader))
+                .then();
+    }
+
+    /**
+     * The cached entry of {@code request}: the digest of its json followed by the body in
+     * {@code encoding}.
+     */
+    private Mono<byte[]> body(
+            FilterTaskDto filterTaskDto,
+            Object request,
+            TaskFields fields,
+            String encoding,
+            Supplier<? extends Mono<?>> loader
+    ) {
+        return taskCache.get(TASK_RESPONSES, filterTaskDto, List.of(request, encoding, ENTRY_LAYOUT),
+                () -> loader.get().map(body -> encode(body, fields, encoding)));
+    }
+
+    /**
+     * A strong entity tag for the listing identified by {@code namespace}, the filter and
+     * {@code key}, whose rows digest to {@code digest}. Encodings get distinct tags since their
+     * bytes differ.
+     */
+    static String eTag(String namespace, FilterTaskDto filterTaskDto, Object key, String digest, String encoding) {
+        final var tag = HexFormat.of().formatHex(
+                sha256((namespace + "::" + filterTaskDto + "::" + key + "::" + digest).getBytes(StandardCharsets.UTF_8)),
+                0, 16);
+        return "\"" + (encoding.equals(GZIP) ? tag + "-gz" : tag) + "\"";
+    }
+
+    private static String digest(byte[] entry) {
+        return HexFormat.of().formatHex(entry, 0, DIGEST_LENGTH);
+    }
+
+    /**
+     * Renders {@code body} as the entry {@link #body} caches. The digest is taken over the json,
+     * which holds every row with its version, so that it changes with any row of the listing
+     * even when its generations do not, such as after they were lost with redis.
+     */
+    private byte[] encode(Object body, TaskFields fields, String encoding) {
+        try {
+            final var json = (fields.all() ? objectMapper : sparseObjectMapper).writeValueAsBytes(body);
+            final var bytes = new ByteArrayOutputStream(
+                    DIGEST_LENGTH + (encoding.equals(GZIP) ? json.length / 4 + 64 : json.length));
+            bytes.write(sha256(json), 0, DIGEST_LENGTH);
+            if (!encoding.equals(GZIP)) {
+                bytes.write(json);
+                return bytes.toByteArray();
+            }
+
+            try (var gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(json);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether {@code acceptEncoding} lists gzip, or any encoding, without a zero quality.
+     */
+    static boolean acceptsGzip(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (var candidate : acceptEncoding.split(",")) {
+            final var parameters = candidate.split(";");
+            final var coding = parameters[0].trim();
+            if (!coding.equalsIgnoreCase(GZIP) && !coding.equals("*")) {
+                continue;
+            }
+
+            var rejected = false;
+            for (int index = 1; index < parameters.length; index++) {
+                final var parameter = parameters[index].trim().replace(" ", "");
+                if (parameter.matches("q=0(\\.0{0,3})?")) {
+                    rejected = true;
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,240 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.task.dto.CursorPage;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.domain.Slice;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A size bounded in-process cache in front of a remote one. Hits on the near tier skip the
+ * network round trip and deserialization of the remote value. Writes go to both tiers and are
+ * broadcast so that other nodes drop their own near copy, this node keeping the value written.
+ *
+ * @author Denis Gitonga
+ */
+public class TwoTierCache implements Cache {
+
+    private final Cache remote;
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> near;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final LongAdder remoteHits = new LongAdder();
+
+    private final LongAdder remoteMisses = new LongAdder();
+
+    public TwoTierCache(Cache remote, long maximumWeight, Duration ttl, CacheInvalidationBus invalidationBus) {
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.near = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher(TwoTierCache::weigh)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return near;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        final var value = near.getIfPresent(key);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        return remember(key, remote.get(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        final var wrapper = get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            return null;
+        }
+        if (type != null && !type.isInstance(wrapper.get())) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + wrapper.get());
+        }
+        return (T) wrapper.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) near.get(key, k -> remote.get(k, valueLoader));
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        final var value = near.getIfPresent(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(new SimpleValueWrapper(value));
+        }
+        final var future = remote.retrieve(key);
+        if (future == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        return future.thenApply(retrieved -> remember(key, retrieved instanceof ValueWrapper wrapper
+                ? wrapper
+                : retrieved == null ? null : new SimpleValueWrapper(retrieved)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        final var value = near.getIfPresent(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture((T) value);
+        }
+        final var loaded = new AtomicBoolean();
+        return remote.retrieve(key, () -> {
+                    loaded.set(true);
+                    return valueLoader.get();
+                })
+                .thenApply(retrieved -> {
+                    if (loaded.get()) {
+                        remoteMisses.increment();
+                    } else {
+                        remoteHits.increment();
+                    }
+                    if (retrieved != null) {
+                        near.put(key, retrieved);
+                    }
+                    return retrieved;
+                });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        near.put(key, value);
+        broadcast(CacheInvalidation.Type.EVICT, List.of(key.toString()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        near.invalidate(key);
+        broadcast(CacheInvalidation.Type.EVICT, List.of(key.toString()));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        near.invalidateAll();
+        broadcast(CacheInvalidation.Type.CLEAR, List.of());
+    }
+
+    void evictNear(Collection<String> keys) {
+        near.invalidateAll(keys);
+    }
+
+    void clearNear() {
+        near.invalidateAll();
+    }
+
+    void evictNearIf(Predicate<Object> predicate) {
+        near.asMap().keySet().removeIf(predicate);
+    }
+
+    public long nearHits() {
+        return near.stats().hitCount();
+    }
+
+    public long nearMisses() {
+        return near.stats().missCount();
+    }
+
+    public long nearEvictions() {
+        return near.stats().evictionCount();
+    }
+
+    public long nearWeight() {
+        return near.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public long remoteHits() {
+        return remoteHits.sum();
+    }
+
+    public long remoteMisses() {
+        return remoteMisses.sum();
+    }
+
+    private ValueWrapper remember(Object key, ValueWrapper wrapper) {
+        if (wrapper == null || wrapper.get() == null) {
+            if (wrapper == null) {
+                remoteMisses.increment();
+            }
+            return wrapper;
+        }
+        remoteHits.increment();
+        near.put(key, wrapper.get());
+        return wrapper;
+    }
+
+    private void broadcast(CacheInvalidation.Type type, List<String> keys) {
+        invalidationBus.publish(new CacheInvalidation(getName(), type, keys, null)).subscribe();
+    }
+
+    /**
+     * Rough heap footprint of a cached value, enough to bound the near tier by bytes rather than
+     * by entry count since listing pages vary a lot in size.
+     */
+    static int weigh(Object key, Object value) {
+        final var keyWeight = 40 + 2 * key.toString().length();
+        final long valueWeight;
+        if (value instanceof byte[] bytes) {
+            valueWeight = 16 + bytes.length;
+        } else if (value instanceof Slice<?> slice) {
+            valueWeight = 128 + weigh(slice.getContent());
+        } else if (value instanceof CursorPage<?> page) {
+            valueWeight = 64 + weigh(page.content());
+        } else if (value instanceof Number) {
+            valueWeight = 24;
+        } else {
+            valueWeight = 1024;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, keyWeight + valueWeight);
+    }
+
+    private static long weigh(List<?> content) {
+        long weight = 16L + 8L * content.size();
+        for (var element : content) {
+            if (element instanceof TaskDto task) {
+                weight += 96 + length(task.title()) + length(task.description());
+            } else {
+                weight += 256;
+            }
+        }
+        return weight;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
@@ -0,0 +1,115 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Decorates the caches of a remote {@link CacheManager} with a {@link TwoTierCache near tier},
+ * and drops near entries when another node broadcasts an invalidation.
+ *
+ * @author Denis Gitonga
+ */
+public class TwoTierCacheManager implements CacheManager, MeterBinder {
+
+    private final CacheManager remote;
+
+    private final long maximumWeight;
+
+    private final Duration ttl;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(
+            CacheManager remote,
+            long maximumWeight,
+            Duration ttl,
+            CacheInvalidationBus invalidationBus,
+            Collection<String> cacheNames
+    ) {
+        this.remote = remote;
+        this.maximumWeight = maximumWeight;
+        this.ttl = ttl;
+        this.invalidationBus = invalidationBus;
+
+        cacheNames.forEach(this::getCache);
+        invalidationBus.register(this::onInvalidation);
+    }
+
+    @Override
+    public TwoTierCache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> new TwoTierCache(
+                Objects.requireNonNull(remote.getCache(cacheName)), maximumWeight, ttl, invalidationBus));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+
+    public void evictNearIf(Predicate<Object> predicate) {
+        caches.values().forEach(cache -> cache.evictNearIf(predicate));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        caches.values().forEach(cache -> {
+            counter(registry, cache, "near", "hit", TwoTierCache::nearHits);
+            counter(registry, cache, "near", "miss", TwoTierCache::nearMisses);
+            counter(registry, cache, "remote", "hit", TwoTierCache::remoteHits);
+            counter(registry, cache, "remote", "miss", TwoTierCache::remoteMisses);
+
+            FunctionCounter.builder("cache.evictions", cache, TwoTierCache::nearEvictions)
+                    .tags("cache", cache.getName(), "tier", "near")
+                    .description("Entries evicted from the near tier to stay within its size bound")
+                    .register(registry);
+            Gauge.builder("cache.near.weight", cache, TwoTierCache::nearWeight)
+                    .tags("cache", cache.getName())
+                    .baseUnit("bytes")
+                    .description("Estimated heap held by the near tier")
+                    .register(registry);
+        });
+    }
+
+    private void counter(
+            MeterRegistry registry,
+            TwoTierCache cache,
+            String tier,
+            String result,
+            ToDoubleFunction<TwoTierCache> count
+    ) {
+        FunctionCounter.builder("cache.gets", cache, count)
+                .tags("cache", cache.getName(), "tier", tier, "result", result)
+                .description("Cache lookups per tier")
+                .register(registry);
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        // the publishing node updated its own near tier already, possibly with a newer value
+        if (invalidation.cache() == null || invalidationBus.isLocal(invalidation)) {
+            return;
+        }
+        final var cache = caches.get(invalidation.cache());
+        if (cache == null) {
+            return;
+        }
+        switch (invalidation.type()) {
+            case EVICT -> cache.evictNear(invalidation.keys());
+            case CLEAR -> cache.clearNear();
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package co.ke.ipsl.interview.taskmanagement.task.dto;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Outcome of one task of a batch create, {@code index} being its position in the request.
+ *
+ * @author Denis Gitonga
+ */
+public record BatchTaskResultDto(
+        int index,
+
+        String title,
+
+        Status status,
+
+        @Nullable
+        TaskDto task
+) {
+
+    public enum Status {
+        CREATED,
+        /**
+         * A task with the same title exists, or precedes it in the batch.
+         */
+        CONFLICT
+    }
+
+    public static BatchTaskResultDto created(int index, TaskDto task) {
+        return new BatchTaskResultDto(index, task.title(), Status.CREATED, task);
+    }
+
+    public static BatchTaskResultDto conflict(int index, String title) {
+        return new BatchTaskResultDto(index, title, Status.CONFLICT, null);
+    }
+}
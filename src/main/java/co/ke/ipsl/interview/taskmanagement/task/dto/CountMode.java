@@ -0,0 +1,33 @@
+package co.ke.ipsl.interview.taskmanagement.task.dto;
+
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidCountModeException;
+
+import java.util.Locale;
+
+/**
+ * How the total number of matching tasks is resolved for a listing.
+ *
+ * @author Denis Gitonga
+ */
+public enum CountMode {
+
+    /**
+     * No total, only whether a next page exists, using a {@code limit + 1} fetch.
+     */
+    NONE,
+
+    /**
+     * Planner statistics for the unfiltered listing, exact otherwise.
+     */
+    ESTIMATE,
+
+    EXACT;
+
+    public static CountMode of(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCountModeException();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package co.ke.ipsl.interview.taskmanagement.task.dto;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * A page of a keyset paginated listing. {@code nextCursor} is absent on the last page.
+ *
+ * @author Denis Gitonga
+ */
+public record CursorPage<T>(
+        List<T> content,
+
+        int size,
+
+        @Nullable
+        String nextCursor
+) {
+}
@@ -5,10 +5,19 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.data.relational.core.query.Criteria;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
 
 import static org.springframework.data.relational.core.query.Criteria.from;
 
 /**
+ * @param q         full text search over title and description, in web search syntax. Not part
+ *                  of {@link #criteria()}, which cannot express it. Only offset listings search,
+ *                  over the first 1000 matches found, so a total of 1000 may leave some out
+ * @param dueFrom   earliest due date, inclusive
+ * @param dueTo     latest due date, inclusive
+ * @param dueBefore due date upper bound, exclusive
+ * @param ids       tasks to restrict the listing to
  * @author Denis Gitonga
  */
 public record FilterTaskDto(
@@ -16,7 +25,22 @@ public record FilterTaskDto(
         String title,
 
         @Nullable
-        LocalDate dueDate
+        LocalDate dueDate,
+
+        @Nullable
+        String q,
+
+        @Nullable
+        LocalDate dueFrom,
+
+        @Nullable
+        LocalDate dueTo,
+
+        @Nullable
+        LocalDate dueBefore,
+
+        @Nullable
+        List<UUID> ids
 ) {
     @NotNull
     public Criteria criteria() {
@@ -29,6 +53,34 @@ public record FilterTaskDto(
             criteria = criteria.and("dueDate").is(dueDate());
         }
 
+        if (dueFrom() != null) {
+            criteria = criteria.and("dueDate").greaterThanOrEquals(dueFrom());
+        }
+
+        if (dueTo() != null) {
+            criteria = criteria.and("dueDate").lessThanOrEquals(dueTo());
+        }
+
+        if (dueBefore() != null) {
+            criteria = criteria.and("dueDate").lessThan(dueBefore());
+        }
+
+        if (ids() != null && !ids().isEmpty()) {
+            criteria = criteria.and("id").in(ids());
+        }
+
         return criteria;
     }
+
+    /**
+     * The {@code tasks.task_counts} bucket maintaining the exact count of this filter, if any.
+     */
+    @Nullable
+    public String countBucket() {
+        if (title() != null || q() != null || dueFrom() != null || dueTo() != null || dueBefore() != null
+                || (ids() != null && !ids().isEmpty())) {
+            return null;
+        }
+        return dueDate() == null ? "all" : "due:" + dueDate();
+    }
 }
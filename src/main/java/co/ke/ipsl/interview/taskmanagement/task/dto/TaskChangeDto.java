@@ -0,0 +1,51 @@
+package co.ke.ipsl.interview.taskmanagement.task.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.annotation.Nullable;
+
+import java.util.UUID;
+
+/**
+ * A change to a task pushed to the change feed. {@code task} is the task as written, absent once
+ * deleted. A {@link Type#RESYNC resync} carries nothing and means changes may have been missed,
+ * listings should be fetched again.
+ *
+ * @author Denis Gitonga
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskChangeDto(
+        Type type,
+
+        @Nullable
+        UUID id,
+
+        @Nullable
+        Integer version,
+
+        @Nullable
+        TaskDto task
+) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        RESYNC
+    }
+
+    public static TaskChangeDto created(TaskDto task) {
+        return new TaskChangeDto(Type.CREATED, task.id(), task.version(), task);
+    }
+
+    public static TaskChangeDto updated(TaskDto task) {
+        return new TaskChangeDto(Type.UPDATED, task.id(), task.version(), task);
+    }
+
+    public static TaskChangeDto deleted(UUID id, int version) {
+        return new TaskChangeDto(Type.DELETED, id, version, null);
+    }
+
+    public static TaskChangeDto resync() {
+        return new TaskChangeDto(Type.RESYNC, null, null, null);
+    }
+}
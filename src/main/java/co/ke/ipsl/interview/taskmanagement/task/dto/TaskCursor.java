@@ -0,0 +1,137 @@
+package co.ke.ipsl.interview.taskmanagement.task.dto;
+
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidCursorException;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import jakarta.annotation.Nullable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+/**
+ * Opaque continuation token for keyset pagination holding the (sort key, id) tuple of the last
+ * task of a page.
+ *
+ * @author Denis Gitonga
+ */
+public record TaskCursor(
+        String property,
+
+        @Nullable
+        String value,
+
+        UUID id
+) {
+
+    private static final String ID = "id";
+
+    private static final Set<String> SORTABLE = Set.of(ID, "title", "dueDate", "createdAt");
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Resolves the keyset sort key from the requested sort, {@code id} being the tie-breaker.
+     */
+    public static Sort.Order order(Sort sort) {
+        final var order = sort.stream()
+                .findFirst()
+                .orElse(Sort.Order.asc(ID));
+
+        if (!SORTABLE.contains(order.getProperty())) {
+            throw new InvalidCursorException();
+        }
+        return order;
+    }
+
+    public static Sort sort(Sort.Order order) {
+        if (ID.equals(order.getProperty())) {
+            return Sort.by(order);
+        }
+        return Sort.by(order, new Sort.Order(order.getDirection(), ID));
+    }
+
+    public static TaskCursor after(Task task, String property) {
+        final Object value = switch (property) {
+            case "title" -> task.title();
+            case "dueDate" -> task.dueDate();
+            case "createdAt" -> task.createdAt();
+            default -> task.id();
+        };
+        return new TaskCursor(property, value == null ? null : value.toString(), task.id());
+    }
+
+    public static TaskCursor decode(String token, String property) {
+        try {
+            final var decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final var first = decoded.indexOf(SEPARATOR);
+            final var last = decoded.lastIndexOf(SEPARATOR);
+            final var cursor = new TaskCursor(
+                    decoded.substring(0, first),
+                    decoded.charAt(first + 1) == 'N' ? null : decoded.substring(first + 2, last),
+                    UUID.fromString(decoded.substring(last + 1)));
+
+            if (!cursor.property().equals(property)) {
+                throw new InvalidCursorException();
+            }
+            cursor.typedValue();
+            return cursor;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    public String encode() {
+        final var raw = property + SEPARATOR + (value == null ? "N" : "V" + value) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Seek predicate equivalent to {@code (k, id) > (value, id)}, written as
+     * {@code k >= value and (k > value or id > id)} so that postgres can start an index range scan
+     * on the leading key. Postgres sorts nulls last ascending and first descending, which the
+     * null branches follow.
+     */
+    public Criteria criteria(Sort.Direction direction) {
+        final var ascending = direction.isAscending();
+
+        if (ID.equals(property)) {
+            return ascending ? where(ID).greaterThan(id) : where(ID).lessThan(id);
+        }
+
+        if (value == null) {
+            return ascending
+                    ? where(property).isNull().and(ID).greaterThan(id)
+                    : where(property).isNotNull().or(where(property).isNull().and(ID).lessThan(id));
+        }
+
+        final var key = typedValue();
+        if (ascending) {
+            return where(property).greaterThanOrEquals(key)
+                    .and(where(property).greaterThan(key).or(ID).greaterThan(id))
+                    .or(where(property).isNull());
+        }
+        return where(property).lessThanOrEquals(key)
+                .and(where(property).lessThan(key).or(ID).lessThan(id));
+    }
+
+    Object typedValue() {
+        if (value == null) {
+            return null;
+        }
+        return switch (property) {
+            case "dueDate" -> LocalDate.parse(value);
+            case "createdAt" -> Instant.parse(value);
+            case ID -> UUID.fromString(value);
+            default -> value;
+        };
+    }
+}
@@ -6,6 +6,9 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 /**
+ * Properties left out of a {@link TaskFields sparse fieldset} are null, and omitted from the
+ * json of sparse listings, see {@link TaskFields#sparse}.
+ *
  * @author Denis Gitonga
  */
 public record TaskDto(
@@ -15,7 +18,9 @@ public record TaskDto(
 
         String description,
 
-        LocalDate dueDate
+        LocalDate dueDate,
+
+        Integer version
 ) {
 
     public static TaskDto of(Task task) {
@@ -23,7 +28,8 @@ public record TaskDto(
                 task.id(),
                 task.title(),
                 task.description(),
-                task.dueDate()
+                task.dueDate(),
+                task.version()
         );
     }
 }
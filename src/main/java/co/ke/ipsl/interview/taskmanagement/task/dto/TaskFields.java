@@ -0,0 +1,103 @@
+package co.ke.ipsl.interview.taskmanagement.task.dto;
+
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidFieldsException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The {@link TaskDto} properties a listing asks for, selecting only their columns. {@code id} is
+ * always included.
+ *
+ * @author Denis Gitonga
+ */
+public record TaskFields(SortedSet<String> properties) {
+
+    private static final Map<String, String> COLUMNS = Map.of(
+            "id", "id",
+            "title", "title",
+            "description", "description",
+            "dueDate", "due_date",
+            "version", "version");
+
+    /**
+     * Sort keys that are not fields but whose columns keyset pagination reads.
+     */
+    private static final Map<String, String> SORT_COLUMNS = Map.of("createdAt", "created_date");
+
+    public static final TaskFields ALL = new TaskFields(new TreeSet<>(COLUMNS.keySet()));
+
+    public static TaskFields of(@Nullable String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+
+        final var properties = new TreeSet<String>();
+        properties.add("id");
+        for (var field : fields.split(",")) {
+            final var property = field.trim();
+            if (!COLUMNS.containsKey(property)) {
+                throw new InvalidFieldsException();
+            }
+            properties.add(property);
+        }
+        return new TaskFields(properties);
+    }
+
+    public boolean all() {
+        return properties.size() == COLUMNS.size();
+    }
+
+    /**
+     * Columns to select for these fields and the {@code sortProperties} a query reads back.
+     */
+    public String[] columns(String... sortProperties) {
+        final var columns = new LinkedHashSet<String>();
+        properties.forEach(property -> columns.add(COLUMNS.get(property)));
+        for (var property : sortProperties) {
+            final var column = COLUMNS.getOrDefault(property, SORT_COLUMNS.get(property));
+            if (column != null) {
+                columns.add(column);
+            }
+        }
+        return columns.toArray(String[]::new);
+    }
+
+    /**
+     * Clears the properties not asked for, such as a sort key selected along.
+     */
+    public TaskDto project(TaskDto taskDto) {
+        if (all()) {
+            return taskDto;
+        }
+        return new TaskDto(
+                taskDto.id(),
+                properties.contains("title") ? taskDto.title() : null,
+                properties.contains("description") ? taskDto.description() : null,
+                properties.contains("dueDate") ? taskDto.dueDate() : null,
+                properties.contains("version") ? taskDto.version() : null);
+    }
+
+    /**
+     * A copy of {@code objectMapper} for listings of a sparse fieldset, omitting the properties
+     * not asked for instead of writing them as null. Full listings keep their null properties,
+     * such as a task without a due date.
+     */
+    public static ObjectMapper sparse(ObjectMapper objectMapper) {
+        return objectMapper.copy().addMixIn(TaskDto.class, Sparse.class);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", properties);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private interface Sparse {
+    }
+}
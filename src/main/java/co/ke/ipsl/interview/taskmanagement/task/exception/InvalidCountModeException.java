@@ -0,0 +1,11 @@
+package co.ke.ipsl.interview.taskmanagement.task.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * @author Denis Gitonga
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCountModeException extends RuntimeException {
+}
@@ -8,4 +8,11 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  */
 @ResponseStatus(code = HttpStatus.CONFLICT)
 public class TaskAlreadyExistException extends RuntimeException {
+
+    public TaskAlreadyExistException() {
+    }
+
+    public TaskAlreadyExistException(Throwable cause) {
+        super(cause);
+    }
 }
@@ -0,0 +1,17 @@
+package co.ke.ipsl.interview.taskmanagement.task.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Too many task writes are already waiting for a batch, the client should retry later.
+ *
+ * @author Denis Gitonga
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class TaskWritesOverloadedException extends RuntimeException {
+
+    public TaskWritesOverloadedException() {
+        super("Task writes are overloaded");
+    }
+}
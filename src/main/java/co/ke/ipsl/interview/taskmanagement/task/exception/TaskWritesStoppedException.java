@@ -0,0 +1,17 @@
+package co.ke.ipsl.interview.taskmanagement.task.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Task writes stopped being batched, as on shutdown, before the write could run.
+ *
+ * @author Denis Gitonga
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class TaskWritesStoppedException extends RuntimeException {
+
+    public TaskWritesStoppedException() {
+        super("Task writes are stopped");
+    }
+}
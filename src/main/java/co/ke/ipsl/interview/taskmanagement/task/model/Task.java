@@ -1,7 +1,6 @@
 package co.ke.ipsl.interview.taskmanagement.task.model;
 
 import co.ke.ipsl.interview.taskmanagement.task.dto.CreateTaskDto;
-import co.ke.ipsl.interview.taskmanagement.task.dto.UpdateTaskDto;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -63,17 +62,4 @@ public record Task(
                 0
         );
     }
-
-    public Task update(UpdateTaskDto updateTaskDto) {
-
-        return new Task(
-                id(),
-                updateTaskDto.title(),
-                updateTaskDto.description(),
-                updateTaskDto.dueDate(),
-                createdAt(),
-                updatedAt(),
-                version()
-        );
-    }
 }
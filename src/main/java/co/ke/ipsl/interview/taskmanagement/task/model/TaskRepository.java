@@ -3,10 +3,12 @@ package co.ke.ipsl.interview.taskmanagement.task.model;
 import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.util.UUID;
 
 /**
@@ -18,4 +20,82 @@ public interface TaskRepository extends R2dbcRepository<Task, UUID> {
 
     Mono<Task> findByTitle(String title);
 
+    /**
+     * Like every query returning tasks below, lists the columns of {@link Task} rather than
+     * selecting all of them, leaving out the full text {@code search} vector.
+     */
+    @Override
+    @Query("""
+            select id, title, description, due_date, created_date, updated_date, version
+            from tasks.tasks where id = :id
+            """)
+    Mono<Task> findById(UUID id);
+
+    @Override
+    @Query("""
+            select id, title, description, due_date, created_date, updated_date, version
+            from tasks.tasks where id in (:ids)
+            """)
+    Flux<Task> findAllById(Iterable<UUID> ids);
+
+    /**
+     * Inserts the task unless its title is taken, in which case nothing is returned.
+     */
+    @Query("""
+            insert into tasks.tasks (title, description, due_date, created_date, updated_date, version)
+            values (:title, :description, :dueDate, now(), now(), 1)
+            on conflict (title) do nothing
+            returning id, title, description, due_date, created_date, updated_date, version
+            """)
+    Mono<Task> insertIfAbsent(String title, String description, LocalDate dueDate);
+
+    /**
+     * Updates the task if it is in {@code version}, or in any version when {@code version} is
+     * null. Returns the updated row followed by the row as it was before the update, nothing when
+     * no row matched.
+     */
+    @Query("""
+            with previous as (
+                select id, title, description, due_date, created_date, updated_date, version from tasks.tasks where id = :id
+            ), updated as (
+                update tasks.tasks
+                set title = :title, description = :description, due_date = :dueDate,
+                    updated_date = now(), version = version + 1
+                where id = :id and (cast(:version as int) is null or version = :version)
+                returning id, title, description, due_date, created_date, updated_date, version
+            )
+            select * from updated
+            union all
+            select * from previous where exists (select 1 from updated)
+            """)
+    Flux<Task> updateIfVersion(UUID id, Integer version, String title, String description, LocalDate dueDate);
+
+    /**
+     * Deletes the task if it is in {@code version}, or in any version when {@code version} is
+     * null. Returns the deleted row.
+     */
+    @Query("""
+            delete from tasks.tasks
+            where id = :id and (cast(:version as int) is null or version = :version)
+            returning id, title, description, due_date, created_date, updated_date, version
+            """)
+    Mono<Task> deleteIfVersion(UUID id, Integer version);
+
+    @Query("select title from tasks.tasks where title = any(:titles)")
+    Flux<String> findExistingTitles(String[] titles);
+
+    /**
+     * Inserts one task per array index in a single statement, skipping titles that exist by the
+     * time it runs. Returns the inserted rows.
+     */
+    @Query("""
+            insert into tasks.tasks (title, description, due_date, created_date, updated_date, version)
+            select title, description, due_date, now(), now(), 1
+            from unnest(cast(:titles as varchar[]), cast(:descriptions as text[]), cast(:dueDates as date[]))
+                    as candidate(title, description, due_date)
+            on conflict (title) do nothing
+            returning id, title, description, due_date, created_date, updated_date, version
+            """)
+    Flux<Task> insertAll(String[] titles, String[] descriptions, String[] dueDates);
+
 }
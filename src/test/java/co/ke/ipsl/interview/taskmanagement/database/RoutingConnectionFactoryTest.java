@@ -0,0 +1,107 @@
+package co.ke.ipsl.interview.taskmanagement.database;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Denis Gitonga
+ */
+@ExtendWith(MockitoExtension.class)
+class RoutingConnectionFactoryTest {
+
+    @Mock
+    private ConnectionFactory primary;
+
+    @Mock
+    private ConnectionFactory replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RoutingConnectionFactory routingConnectionFactory;
+
+    @BeforeEach
+    void setUp() {
+        routingConnectionFactory = new RoutingConnectionFactory(primary, replica, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("should hand out primary connections to unmarked work")
+    void create_Unmarked() {
+        given(primary.create()).willAnswer(invocation -> Mono.just(primaryConnection));
+
+        StepVerifier.create(routingConnectionFactory.create())
+                .expectNext(primaryConnection)
+                .verifyComplete();
+
+        verify(replica, never()).create();
+    }
+
+    @Test
+    @DisplayName("should hand out replica connections to read only work")
+    void create_ReadOnly() {
+        given(replica.create()).willAnswer(invocation -> Mono.just(replicaConnection));
+
+        StepVerifier.create(routingConnectionFactory.create().contextWrite(ReadRouting.readOnly()))
+                .expectNext(replicaConnection)
+                .verifyComplete();
+
+        assertThat(count("replica")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("should keep read only work of a pinned caller on the primary")
+    void create_Pinned() {
+        given(primary.create()).willAnswer(invocation -> Mono.just(primaryConnection));
+
+        StepVerifier.create(routingConnectionFactory.create()
+                        .contextWrite(ReadRouting.readOnly())
+                        .contextWrite(ReadRouting.pinToPrimary()))
+                .expectNext(primaryConnection)
+                .verifyComplete();
+
+        verify(replica, never()).create();
+    }
+
+    @Test
+    @DisplayName("should read from the primary while the replica is down")
+    void create_ReplicaDown() {
+        given(primary.create()).willAnswer(invocation -> Mono.just(primaryConnection));
+        given(replica.create()).willAnswer(invocation -> Mono.error(new IllegalStateException("replica down")));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            StepVerifier.create(routingConnectionFactory.create().contextWrite(ReadRouting.readOnly()))
+                    .expectNext(primaryConnection)
+                    .verifyComplete();
+        }
+
+        verify(replica, times(1)).create();
+        assertThat(count("fallback")).isEqualTo(2.0);
+    }
+
+    private double count(String target) {
+        return meterRegistry.get("r2dbc.routing.connections").tag("target", target).counter().count();
+    }
+}
@@ -0,0 +1,76 @@
+package co.ke.ipsl.interview.taskmanagement.security;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskSecurityProperties;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.test.StepVerifier;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Denis Gitonga
+ */
+class AccessTokenServiceTest {
+
+    private final SecretKeySpec key = new SecretKeySpec(
+            "an access token signing key of 32+ bytes".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+
+    private final AccessTokenService accessTokenService = new AccessTokenService(
+            new NimbusJwtEncoder(new ImmutableSecret<>(key)),
+            new TaskSecurityProperties(
+                    new TaskSecurityProperties.UserCache(Duration.ofMinutes(5), 100),
+                    new TaskSecurityProperties.PasswordCheck(1, 8, Duration.ofMinutes(1), 100),
+                    new TaskSecurityProperties.Token(null, "task-management", Duration.ofMinutes(15))));
+
+    @Test
+    @DisplayName("should issue a token carrying the user's roles")
+    void issue() {
+        final var authentication = UsernamePasswordAuthenticationToken.authenticated(
+                "denisbgitonga@gmail.com", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN", "SCOPE_tasks"));
+        final var decoder = NimbusReactiveJwtDecoder.withSecretKey(key)
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer("task-management"));
+
+        accessTokenService.issue(authentication)
+                .doOnNext(token -> {
+                    assertThat(token.tokenType()).isEqualTo("Bearer");
+                    assertThat(token.expiresIn()).isEqualTo(900);
+                })
+                .flatMap(token -> decoder.decode(token.accessToken()))
+                .as(StepVerifier::create)
+                .assertNext(jwt -> {
+                    assertThat(jwt.getSubject()).isEqualTo("denisbgitonga@gmail.com");
+                    assertThat(jwt.getClaimAsStringList(AccessTokenService.ROLES_CLAIM)).isEqualTo(List.of("ADMIN"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should not renew an access token into another")
+    void issue_fromAccessToken() {
+        final var jwt = Jwt.withTokenValue("token")
+                .header("alg", "HS256")
+                .subject("denisbgitonga@gmail.com")
+                .build();
+
+        accessTokenService.issue(new JwtAuthenticationToken(jwt))
+                .as(StepVerifier::create)
+                .verifyError(AccessDeniedException.class);
+    }
+}
@@ -0,0 +1,121 @@
+package co.ke.ipsl.interview.taskmanagement.security;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskSecurityProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Denis Gitonga
+ */
+@ExtendWith(MockitoExtension.class)
+class PasswordAuthenticationManagerTest {
+
+    @Mock
+    private ReactiveUserDetailsService userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private PasswordAuthenticationManager authenticationManager;
+
+    @BeforeEach
+    void setUp() {
+        authenticationManager = new PasswordAuthenticationManager(userDetailsService, passwordEncoder,
+                new TaskSecurityProperties(
+                        new TaskSecurityProperties.UserCache(Duration.ofMinutes(5), 100),
+                        new TaskSecurityProperties.PasswordCheck(1, 8, Duration.ofMinutes(1), 100),
+                        new TaskSecurityProperties.Token(null, "task-management", Duration.ofMinutes(15))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        authenticationManager.destroy();
+    }
+
+    @Test
+    @DisplayName("should hash a credential once while it stays verified")
+    void authenticate_RemembersVerifiedCredentials() {
+        given(userDetailsService.findByUsername("user")).willAnswer(invocation -> Mono.just(user("{bcrypt}hash")));
+        given(passwordEncoder.matches("secret", "{bcrypt}hash")).willReturn(true);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "secret"))
+                    .as(StepVerifier::create)
+                    .assertNext(authentication -> {
+                        assertThat(authentication.isAuthenticated()).isTrue();
+                        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+                    })
+                    .verifyComplete();
+        }
+
+        verify(passwordEncoder, times(1)).matches("secret", "{bcrypt}hash");
+    }
+
+    @Test
+    @DisplayName("should hash again once the stored password changes")
+    void authenticate_ChangedPassword() {
+        given(userDetailsService.findByUsername("user"))
+                .willReturn(Mono.just(user("{bcrypt}hash")), Mono.just(user("{bcrypt}changed")));
+        given(passwordEncoder.matches("secret", "{bcrypt}hash")).willReturn(true);
+        given(passwordEncoder.matches("secret", "{bcrypt}changed")).willReturn(false);
+
+        authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "secret"))
+                .as(StepVerifier::create)
+                .expectNextCount(1)
+                .verifyComplete();
+        authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "secret"))
+                .as(StepVerifier::create)
+                .verifyError(BadCredentialsException.class);
+    }
+
+    @Test
+    @DisplayName("should not remember wrong credentials")
+    void authenticate_WrongPassword() {
+        given(userDetailsService.findByUsername("user")).willAnswer(invocation -> Mono.just(user("{bcrypt}hash")));
+        given(passwordEncoder.matches("wrong", "{bcrypt}hash")).willReturn(false);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "wrong"))
+                    .as(StepVerifier::create)
+                    .verifyError(BadCredentialsException.class);
+        }
+
+        verify(passwordEncoder, times(2)).matches("wrong", "{bcrypt}hash");
+    }
+
+    @Test
+    @DisplayName("should fail unknown users")
+    void authenticate_UnknownUser() {
+        given(userDetailsService.findByUsername("nobody")).willReturn(Mono.empty());
+
+        authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("nobody", "secret"))
+                .as(StepVerifier::create)
+                .verifyError(BadCredentialsException.class);
+    }
+
+    private static User user(String password) {
+        return (User) User.withUsername("user")
+                .password(password)
+                .roles("ADMIN")
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskChangeProperties;
+import co.ke.ipsl.interview.taskmanagement.database.PostgresNotifications;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskChangeDto;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import co.ke.ipsl.interview.taskmanagement.task.model.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * @author Denis Gitonga
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskChangeFeedTest {
+
+    @Mock
+    private PostgresNotifications notifications;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    private final Sinks.Many<PostgresNotifications.Message> messages = Sinks.many().multicast().directBestEffort();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TaskChangeFeed taskChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        given(notifications.listen(TaskChangeFeed.CHANNEL)).willReturn(messages.asFlux());
+
+        taskChangeFeed = new TaskChangeFeed(notifications, taskRepository, new ObjectMapper().findAndRegisterModules(),
+                new TaskChangeProperties(2, Duration.ofSeconds(15), Duration.ZERO), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("should push changes in the order written, skipping versions since overwritten")
+    @SuppressWarnings("unchecked")
+    void subscribe_ResolvesChanges() {
+        final var created = new Task(UUID.randomUUID(), "created", "a description", LocalDate.now().plusDays(1), null, null, 1);
+        final var overwritten = new Task(UUID.randomUUID(), "overwritten", "a description", LocalDate.now().plusDays(1), null, null, 3);
+        final var deleted = UUID.randomUUID();
+        given(taskRepository.findAllById(any(Iterable.class))).willReturn(Flux.just(created, overwritten));
+
+        StepVerifier.create(taskChangeFeed.subscribe())
+                .then(() -> {
+                    emit("insert", created.id(), 1);
+                    emit("update", overwritten.id(), 2);
+                    emit("delete", deleted, 4);
+                })
+                .assertNext(change -> {
+                    assertThat(change.type()).isEqualTo(TaskChangeDto.Type.CREATED);
+                    assertThat(change.task().title()).isEqualTo("created");
+                })
+                .assertNext(change -> assertThat(change).isEqualTo(TaskChangeDto.deleted(deleted, 4)))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("should push a task created then updated at once as both, from the notifications alone")
+    void subscribe_CarriedTasks() {
+        final var id = UUID.randomUUID();
+        final var dueDate = LocalDate.now().plusDays(1);
+
+        StepVerifier.create(taskChangeFeed.subscribe())
+                .then(() -> {
+                    emit("insert", id, 1, "{\"id\":\"%s\",\"title\":\"draft\",\"description\":null,\"dueDate\":\"%s\",\"version\":1}"
+                            .formatted(id, dueDate));
+                    emit("update", id, 2, "{\"id\":\"%s\",\"title\":\"final\",\"description\":null,\"dueDate\":\"%s\",\"version\":2}"
+                            .formatted(id, dueDate));
+                })
+                .assertNext(change -> {
+                    assertThat(change.type()).isEqualTo(TaskChangeDto.Type.CREATED);
+                    assertThat(change.task().title()).isEqualTo("draft");
+                    assertThat(change.task().dueDate()).isEqualTo(dueDate);
+                })
+                .assertNext(change -> {
+                    assertThat(change.type()).isEqualTo(TaskChangeDto.Type.UPDATED);
+                    assertThat(change.task().title()).isEqualTo("final");
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    @DisplayName("should send a resync to a subscriber falling too far behind")
+    void subscribe_Overflow() {
+        StepVerifier.create(taskChangeFeed.subscribe(), 0)
+                .then(() -> {
+                    for (int version = 1; version <= 5; version++) {
+                        emit("delete", UUID.randomUUID(), version);
+                    }
+                })
+                .thenAwait(Duration.ofMillis(200))
+                .thenRequest(1)
+                .expectNext(TaskChangeDto.resync())
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(meterRegistry.get("task.changes.overflows").counter().count()).isEqualTo(1.0);
+    }
+
+    private void emit(String op, UUID id, int version) {
+        messages.tryEmitNext(new PostgresNotifications.Message(TaskChangeFeed.CHANNEL,
+                "{\"op\":\"%s\",\"id\":\"%s\",\"version\":%d}".formatted(op, id, version)));
+    }
+
+    private void emit(String op, UUID id, int version, String task) {
+        messages.tryEmitNext(new PostgresNotifications.Message(TaskChangeFeed.CHANNEL,
+                "{\"op\":\"%s\",\"id\":\"%s\",\"version\":%d,\"task\":%s}".formatted(op, id, version, task)));
+    }
+}
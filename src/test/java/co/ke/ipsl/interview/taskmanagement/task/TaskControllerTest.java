@@ -1,7 +1,15 @@
 package co.ke.ipsl.interview.taskmanagement.task;
 
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache;
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCacheGenerations;
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskResponseCache;
+import co.ke.ipsl.interview.taskmanagement.task.dto.CountMode;
 import co.ke.ipsl.interview.taskmanagement.task.dto.CreateTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
 import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskFields;
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidCursorException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskStreamTimeoutException;
 import co.ke.ipsl.interview.taskmanagement.task.model.Task;
 import net.datafaker.Faker;
 import org.junit.jupiter.api.DisplayName;
@@ -10,25 +18,44 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ProblemDetail;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
 
 /**
  * @author Denis Gitonga
  */
 @WebFluxTest(controllers = TaskController.class,
         excludeAutoConfiguration = ReactiveSecurityAutoConfiguration.class)
+@Import(TaskResponseCache.class)
 class TaskControllerTest {
 
     @Autowired
@@ -37,6 +64,191 @@ class TaskControllerTest {
     @MockBean
     private TaskService taskService;
 
+    @MockBean
+    private TaskCache taskCache;
+
+    @MockBean
+    private TaskChangeFeed taskChangeFeed;
+
+    @MockBean
+    private TaskCacheGenerations taskCacheGenerations;
+
+    @Test
+    @DisplayName("should serve the listing gzip encoded when accepted")
+    @SuppressWarnings("unchecked")
+    void fetchTasks_gzip() throws IOException {
+        final var task = new TaskDto(UUID.randomUUID(), "a title", "a description", LocalDate.now(), 1);
+        final var pageable = PageRequest.of(0, 20);
+
+        given(taskCacheGenerations.namespace(any())).willReturn(Mono.just("all=0"));
+        given(taskCache.get(eq(TaskCache.TASK_RESPONSES), any(), any(), any()))
+                .willAnswer(invocation -> ((Supplier<Mono<?>>) invocation.getArgument(3)).get());
+        given(taskService.fetchTasks(new FilterTaskDto(null, null, null, null, null, null, null), pageable, CountMode.EXACT, TaskFields.ALL))
+                .willReturn(Mono.just(new PageImpl<>(List.of(task), pageable, 1)));
+
+        final var body = webTestClient.get()
+                .uri("/tasks")
+                .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8))
+                    .contains(task.id().toString(), "\"totalElements\":1");
+        }
+    }
+
+    @Test
+    @DisplayName("should answer a conditional listing request with not modified until the listing changes")
+    @SuppressWarnings("unchecked")
+    void fetchTasks_notModified() {
+        final var task = new TaskDto(UUID.randomUUID(), "a title", "a description", LocalDate.now(), 1);
+        final var pageable = PageRequest.of(0, 20);
+
+        given(taskCacheGenerations.namespace(any())).willReturn(Mono.just("all=0"), Mono.just("all=0"), Mono.just("all=1"));
+        given(taskCache.get(eq(TaskCache.TASK_RESPONSES), any(), any(), any()))
+                .willAnswer(invocation -> ((Supplier<Mono<?>>) invocation.getArgument(3)).get());
+        given(taskService.fetchTasks(new FilterTaskDto(null, null, null, null, null, null, null), pageable, CountMode.EXACT, TaskFields.ALL))
+                .willReturn(Mono.just(new PageImpl<>(List.of(task), pageable, 1)));
+
+        final var eTag = webTestClient.get()
+                .uri("/tasks")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().cacheControl(CacheControl.noCache().cachePublic())
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient.get()
+                .uri("/tasks")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody()
+                .isEmpty();
+
+        webTestClient.get()
+                .uri("/tasks")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        verify(taskCache, times(3)).get(eq(TaskCache.TASK_RESPONSES), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("should change the listing tag when a row changes within the same generations")
+    @SuppressWarnings("unchecked")
+    void fetchTasks_rowChanged() {
+        final var task = new TaskDto(UUID.randomUUID(), "a title", "a description", LocalDate.now(), 1);
+        final var updated = new TaskDto(task.id(), "a new title", "a description", LocalDate.now(), 2);
+        final var pageable = PageRequest.of(0, 20);
+
+        given(taskCacheGenerations.namespace(any())).willReturn(Mono.just("all=0"));
+        given(taskCache.get(eq(TaskCache.TASK_RESPONSES), any(), any(), any()))
+                .willAnswer(invocation -> ((Supplier<Mono<?>>) invocation.getArgument(3)).get());
+        given(taskService.fetchTasks(new FilterTaskDto(null, null, null, null, null, null, null), pageable, CountMode.EXACT, TaskFields.ALL))
+                .willReturn(Mono.just(new PageImpl<>(List.of(task), pageable, 1)),
+                        Mono.just(new PageImpl<>(List.of(updated), pageable, 1)));
+
+        final var eTag = webTestClient.get()
+                .uri("/tasks")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient.get()
+                .uri("/tasks")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(eTag));
+    }
+
+    @Test
+    @DisplayName("should end a streamed listing cut off part way with an error event")
+    void streamTaskEvents_timedOut() {
+        final var task = new TaskDto(UUID.randomUUID(), "a title", "a description", LocalDate.now(), 1);
+
+        given(taskService.streamTasks(any(), any(), eq(TaskFields.ALL)))
+                .willReturn(Flux.concat(Flux.just(task), Flux.error(new TaskStreamTimeoutException())));
+
+        webTestClient.get()
+                .uri("/tasks")
+                .accept(TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .value(body -> assertThat(body)
+                        .contains(task.id().toString())
+                        .contains("event:error")
+                        .contains("\"status\":408"));
+    }
+
+    @Test
+    @DisplayName("should answer a listing sorted by an unknown property with bad request")
+    @SuppressWarnings("unchecked")
+    void fetchTasks_unknownSort() {
+        final var pageable = PageRequest.of(0, 20, Sort.by("priority"));
+
+        given(taskCacheGenerations.namespace(any())).willReturn(Mono.just("all=0"));
+        given(taskCache.get(eq(TaskCache.TASK_RESPONSES), any(), any(), any()))
+                .willAnswer(invocation -> ((Supplier<Mono<?>>) invocation.getArgument(3)).get());
+        given(taskService.fetchTasks(new FilterTaskDto(null, null, null, null, null, null, null), pageable, CountMode.EXACT, TaskFields.ALL))
+                .willReturn(Mono.error(new InvalidCursorException()));
+
+        webTestClient.get()
+                .uri("/tasks?sort=priority")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(ProblemDetail.class)
+                .value(ProblemDetail::getStatus, equalTo(400));
+    }
+
+    @Test
+    @DisplayName("should answer a conditional task request with not modified while in the same version")
+    void fetchTask_notModified() {
+        final var task = new TaskDto(UUID.randomUUID(), "a title", "a description", LocalDate.now(), 3);
+
+        given(taskService.fetchTask(task.id())).willReturn(Mono.just(task));
+
+        webTestClient.get()
+                .uri("/tasks/{taskId}", task.id())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        webTestClient.get()
+                .uri("/tasks/{taskId}", task.id())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody(TaskDto.class)
+                .isEqualTo(task);
+    }
 
     @Test
     @DisplayName("should create task")
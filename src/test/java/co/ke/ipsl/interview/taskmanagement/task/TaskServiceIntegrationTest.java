@@ -1,6 +1,9 @@
 package co.ke.ipsl.interview.taskmanagement.task;
 
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCacheGenerations;
 import co.ke.ipsl.interview.taskmanagement.task.dto.CreateTaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.dto.CursorPage;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
 import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
 import co.ke.ipsl.interview.taskmanagement.task.dto.UpdateTaskDto;
 import co.ke.ipsl.interview.taskmanagement.task.model.Task;
@@ -11,6 +14,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -22,15 +29,18 @@ import org.testcontainers.containers.PostgreSQLR2DBCDatabaseContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.stream.IntStream;
 
 import static io.r2dbc.spi.ConnectionFactoryOptions.*;
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 /**
  * @author Denis Gitonga
@@ -45,6 +55,15 @@ class TaskServiceIntegrationTest {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private TaskCounter taskCounter;
+
+    @Autowired
+    private TaskCacheGenerations taskCacheGenerations;
+
+    @Autowired
+    private ReactiveStringRedisTemplate redisTemplate;
+
     @Container
     @SuppressWarnings("resource")
     static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"))
@@ -183,6 +202,7 @@ class TaskServiceIntegrationTest {
                 .exchange()
                 .expectStatus()
                 .isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + (existingTask.version() + 1) + "\"")
                 .expectBody(TaskDto.class);
 
         taskRepository.findById(existingTask.id())
@@ -212,6 +232,48 @@ class TaskServiceIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    @WithMockUser
+    @DisplayName("should not update or delete task in a stale version")
+    void updateTask_staleVersion() {
+        final var faker = new Faker();
+        Task existingTask = taskRepository.save(Task.of(new CreateTaskDto(
+                faker.text().text(5, 100),
+                faker.text().text(1000),
+                LocalDate.now().plusDays(2)
+        ))).block();
+        assertThat(existingTask).isNotNull();
+
+        final var staleVersion = "\"" + (existingTask.version() - 1) + "\"";
+
+        webTestClient.put()
+                .uri("/tasks/{taskId}", existingTask.id())
+                .header(HttpHeaders.IF_MATCH, staleVersion)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(new UpdateTaskDto(
+                        faker.text().text(5, 100),
+                        faker.text().text(1000),
+                        LocalDate.now().plusDays(3)
+                ))
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        webTestClient.delete()
+                .uri("/tasks/{taskId}", existingTask.id())
+                .header(HttpHeaders.IF_MATCH, staleVersion)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        webTestClient.delete()
+                .uri("/tasks/{taskId}", existingTask.id())
+                .header(HttpHeaders.IF_MATCH, "\"" + existingTask.version() + "\"")
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
     @Test
     @DisplayName("should not update task if not authenticated")
     void updateTask_un_authorized() {
@@ -244,6 +306,74 @@ class TaskServiceIntegrationTest {
                 .isUnauthorized();
     }
 
+    @Test
+    @DisplayName("should not match a listing tag issued before its generation was lost")
+    void fetchTasks_generationLost() {
+        final var faker = new Faker();
+        final var title = faker.text().text(5, 100);
+        taskRepository.save(Task.of(new CreateTaskDto(title, faker.text().text(100), LocalDate.now().plusDays(1))))
+                .block();
+
+        final var eTag = webTestClient.get()
+                .uri(builder -> builder.path("/tasks").queryParam("title", title).build())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient.get()
+                .uri(builder -> builder.path("/tasks").queryParam("title", title).build())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        // as if the counter expired, or redis was flushed
+        redisTemplate.delete("tasks:generation:title:" + title)
+                .as(StepVerifier::create)
+                .expectNext(1L)
+                .verifyComplete();
+        taskCacheGenerations.forget(List.of("title:" + title));
+
+        webTestClient.get()
+                .uri(builder -> builder.path("/tasks").queryParam("title", title).build())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(eTag));
+    }
+
+    @Test
+    @DisplayName("should refuse to sort a listing by a property tasks do not have")
+    void fetchTasks_unknownSort() {
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("sort", "priority,desc")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("sort", "priority")
+                        .queryParam("cursor", "")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("sort", "priority")
+                        .build())
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     @DisplayName("should fetch all tasks")
     void fetchAllTasks() {
@@ -342,6 +472,433 @@ class TaskServiceIntegrationTest {
                 .jsonPath("$.totalElements").isEqualTo(5);
     }
 
+    @Test
+    @DisplayName("should fetch tasks without a total count")
+    void fetchAllTasks_withoutCount() {
+
+        final var faker = new Faker();
+        final var tasks = IntStream.range(0, 5)
+                .mapToObj(value -> new CreateTaskDto(
+                        faker.text().text(5, 100),
+                        faker.text().text(1000),
+                        LocalDate.now().plusDays(2)
+                ))
+                .map(Task::of)
+                .toList();
+
+        taskRepository.saveAll(tasks).collectList()
+                .as(StepVerifier::create)
+                .assertNext(savedTasks -> assertThat(savedTasks).hasSize(tasks.size()))
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("count", "none")
+                        .queryParam("size", 3)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").doesNotExist()
+                .jsonPath("$.content.length()").isEqualTo(3)
+                .jsonPath("$.last").isEqualTo(false);
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("dueDate", LocalDate.now().plusDays(2))
+                        .queryParam("size", 3)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(tasks.size());
+    }
+
+    @Test
+    @DisplayName("should fetch tasks page by page using a cursor")
+    void fetchAllTasks_keyset() {
+
+        final var faker = new Faker();
+        final var tasks = IntStream.range(0, 5)
+                .mapToObj(value -> new CreateTaskDto(
+                        faker.text().text(5, 100),
+                        faker.text().text(1000),
+                        LocalDate.now().plusDays(value)
+                ))
+                .map(Task::of)
+                .toList();
+
+        taskRepository.saveAll(tasks).collectList()
+                .as(StepVerifier::create)
+                .assertNext(savedTasks -> assertThat(savedTasks).hasSize(tasks.size()))
+                .verifyComplete();
+
+        final var firstPage = webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("cursor", "")
+                        .queryParam("size", 3)
+                        .queryParam("sort", "dueDate")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<CursorPage<TaskDto>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(firstPage).isNotNull();
+        assertThat(firstPage.content()).hasSize(3);
+        assertThat(firstPage.nextCursor()).isNotNull();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("cursor", firstPage.nextCursor())
+                        .queryParam("size", 3)
+                        .queryParam("sort", "dueDate")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.content[0].dueDate").isEqualTo(LocalDate.now().plusDays(3).toString())
+                .jsonPath("$.nextCursor").doesNotExist();
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("should filter tasks by due date range and ids")
+    void fetchTasks_dueDateRange() {
+        final var faker = new Faker();
+        final var tasks = taskRepository.saveAll(IntStream.range(0, 10)
+                        .mapToObj(value -> Task.of(new CreateTaskDto(
+                                faker.text().text(5, 100),
+                                faker.text().text(100),
+                                LocalDate.now().plusDays(value)))))
+                .collectList()
+                .block();
+        assertThat(tasks).hasSize(10);
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("dueFrom", LocalDate.now().plusDays(2))
+                        .queryParam("dueTo", LocalDate.now().plusDays(5))
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(4)
+                .jsonPath("$.content[0].dueDate").isEqualTo(LocalDate.now().plusDays(2).toString())
+                .jsonPath("$.content[3].dueDate").isEqualTo(LocalDate.now().plusDays(5).toString());
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("dueBefore", LocalDate.now().plusDays(3))
+                        .queryParam("ids", tasks.get(1).id() + "," + tasks.get(7).id())
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(1)
+                .jsonPath("$.content[0].id").isEqualTo(tasks.get(1).id().toString());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("should only return requested fields")
+    void fetchTasks_fields() {
+        final var faker = new Faker();
+        taskRepository.save(Task.of(new CreateTaskDto(
+                        faker.text().text(5, 100),
+                        faker.text().text(100),
+                        LocalDate.now().plusDays(1))))
+                .block();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("fields", "title,dueDate")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].id").exists()
+                .jsonPath("$.content[0].title").exists()
+                .jsonPath("$.content[0].dueDate").exists()
+                .jsonPath("$.content[0].description").doesNotExist()
+                .jsonPath("$.content[0].version").doesNotExist();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("fields", "secret")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("should search tasks by title and description, best match first")
+    void searchTasks() {
+        taskRepository.saveAll(List.of(
+                        Task.of(new CreateTaskDto("Renew the insurance", "call the broker", null)),
+                        Task.of(new CreateTaskDto("Call the plumber", "kitchen sink leaks, insurance may cover it", null)),
+                        Task.of(new CreateTaskDto("Water the plants", "balcony only", null))))
+                .then()
+                .as(StepVerifier::create)
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("q", "insurance")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(2)
+                .jsonPath("$.content[0].title").isEqualTo("Renew the insurance")
+                .jsonPath("$.content[1].title").isEqualTo("Call the plumber");
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("q", "insurance -plumber")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(1);
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("should filter, rank and count every search match")
+    void searchTasks_filtered() {
+        final var dueDate = LocalDate.now().plusDays(3);
+        final var tasks = IntStream.range(0, 30)
+                .mapToObj(value -> new CreateTaskDto(
+                        "Renew the insurance " + value,
+                        "call the broker",
+                        value % 3 == 0 ? dueDate : LocalDate.now().plusDays(4)))
+                .map(Task::of)
+                .toList();
+        taskRepository.saveAll(tasks)
+                .then()
+                .as(StepVerifier::create)
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("q", "insurance")
+                        .queryParam("dueDate", dueDate)
+                        .queryParam("page", 1)
+                        .queryParam("size", 4)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(10)
+                .jsonPath("$.content.length()").isEqualTo(4)
+                .jsonPath("$.content[*].dueDate").value(dueDates ->
+                        assertThat((List<?>) dueDates).containsOnly(dueDate.toString()));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("should cap the matches of a search, and refuse to page through or stream them")
+    void searchTasks_capped() {
+        final var tasks = IntStream.range(0, TaskSearch.CANDIDATES + 5)
+                .mapToObj(value -> new CreateTaskDto("Renew the insurance " + value, "call the broker", null))
+                .map(Task::of)
+                .toList();
+        taskRepository.saveAll(tasks)
+                .then()
+                .as(StepVerifier::create)
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("q", "insurance")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(TaskSearch.CANDIDATES);
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("q", "insurance")
+                        .queryParam("cursor", "")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("q", "insurance")
+                        .build())
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("should stream all tasks as ndjson")
+    void streamTasks() {
+        final var faker = new Faker();
+        final var tasks = IntStream.range(0, 300)
+                .mapToObj(value -> new CreateTaskDto(
+                        faker.text().text(5, 100),
+                        faker.text().text(100),
+                        LocalDate.now().plusDays(value % 7)
+                ))
+                .map(Task::of)
+                .toList();
+
+        taskRepository.saveAll(tasks).then()
+                .as(StepVerifier::create)
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri(builder -> builder
+                        .path("/tasks")
+                        .queryParam("dueDate", LocalDate.now().plusDays(1))
+                        .build())
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(TaskDto.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .thenConsumeWhile(task -> task.dueDate().equals(LocalDate.now().plusDays(1)))
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri("/tasks")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(TaskDto.class)
+                .getResponseBody()
+                .count()
+                .as(StepVerifier::create)
+                .expectNext((long) tasks.size())
+                .verifyComplete();
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("should not create task with a taken title")
+    void createTask_duplicateTitle() {
+        final var faker = new Faker();
+        final var createTaskDto = new CreateTaskDto(
+                faker.text().text(5, 100),
+                faker.text().text(1000),
+                LocalDate.now().plusDays(2)
+        );
+        taskRepository.save(Task.of(createTaskDto)).block();
+
+        webTestClient.post()
+                .uri("/tasks")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(createTaskDto)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+
+        taskRepository.count()
+                .as(StepVerifier::create)
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("should create tasks in batch")
+    void createTasks() {
+        final var faker = new Faker();
+        final var existingTask = taskRepository.save(Task.of(new CreateTaskDto(
+                faker.text().text(5, 100),
+                faker.text().text(1000),
+                LocalDate.now().plusDays(2)
+        ))).block();
+        assertThat(existingTask).isNotNull();
+
+        final var createTaskDtos = List.of(
+                new CreateTaskDto(existingTask.title(), faker.text().text(100), null),
+                new CreateTaskDto("a batch title", faker.text().text(100), LocalDate.now().plusDays(1)),
+                new CreateTaskDto("another batch title", faker.text().text(100), null));
+
+        webTestClient.post()
+                .uri("/tasks/batch")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(createTaskDtos)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].status").isEqualTo("CONFLICT")
+                .jsonPath("$[1].status").isEqualTo("CREATED")
+                .jsonPath("$[1].task.dueDate").isEqualTo(LocalDate.now().plusDays(1).toString())
+                .jsonPath("$[2].status").isEqualTo("CREATED");
+
+        taskRepository.count()
+                .as(StepVerifier::create)
+                .expectNext(3L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should keep exact counts across concurrent batches and compactions")
+    void countTasks_compaction() {
+        final var all = new FilterTaskDto(null, null, null, null, null, null, null);
+        final var first = LocalDate.now().plusDays(1);
+        final var second = LocalDate.now().plusDays(2);
+        final var onFirst = new FilterTaskDto(null, first, null, null, null, null, null);
+
+        // batches touching the same due dates in opposite order, which row level counters could deadlock on
+        Flux.range(0, 20)
+                .flatMap(batch -> taskRepository.insertAll(
+                        new String[]{"first " + batch, "second " + batch},
+                        new String[]{"a description", "a description"},
+                        batch % 2 == 0
+                                ? new String[]{first.toString(), second.toString()}
+                                : new String[]{second.toString(), first.toString()}))
+                .as(StepVerifier::create)
+                .expectNextCount(40)
+                .verifyComplete();
+
+        taskCounter.count(all)
+                .as(StepVerifier::create)
+                .expectNext(40L)
+                .verifyComplete();
+
+        taskCounter.compact()
+                .as(StepVerifier::create)
+                .expectNextCount(1)
+                .verifyComplete();
+
+        taskCounter.count(all)
+                .as(StepVerifier::create)
+                .expectNext(40L)
+                .verifyComplete();
+        taskCounter.count(onFirst)
+                .as(StepVerifier::create)
+                .expectNext(20L)
+                .verifyComplete();
+    }
+
     @Test
     @WithMockUser
     @DisplayName("should delete task")
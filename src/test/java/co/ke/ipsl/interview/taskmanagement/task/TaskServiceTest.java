@@ -1,11 +1,16 @@
 package co.ke.ipsl.interview.taskmanagement.task;
 
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache;
+import co.ke.ipsl.interview.taskmanagement.task.dto.BatchTaskResultDto;
 import co.ke.ipsl.interview.taskmanagement.task.dto.CreateTaskDto;
 import co.ke.ipsl.interview.taskmanagement.task.dto.UpdateTaskDto;
 import co.ke.ipsl.interview.taskmanagement.task.exception.TaskAlreadyExistException;
 import co.ke.ipsl.interview.taskmanagement.task.exception.TaskMissingException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskVersionMismatchException;
 import co.ke.ipsl.interview.taskmanagement.task.model.Task;
 import co.ke.ipsl.interview.taskmanagement.task.model.TaskRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import net.datafaker.Faker;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,11 +18,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -36,6 +44,15 @@ class TaskServiceTest {
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private TaskCache taskCache;
+
+    @Mock
+    private TaskWriteCoalescer taskWriteCoalescer;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private TaskService taskService;
 
@@ -45,17 +62,15 @@ class TaskServiceTest {
     void createTask() {
 
         var taskId = UUID.randomUUID();
-        given(taskRepository.findByTitle(any())).willReturn(Mono.empty());
-        given(taskRepository.save(any())).willAnswer(invocation -> {
-            Task task = invocation.getArgument(0);
-            return Mono.just(task.withId(taskId));
-        });
-
         var createTaskDto = new CreateTaskDto(
                 faker.text().text(5, 100),
                 faker.text().text(1000),
                 LocalDate.now().plusDays(2)
         );
+        given(taskRepository.insertIfAbsent(createTaskDto.title(), createTaskDto.description(), createTaskDto.dueDate()))
+                .willReturn(Mono.just(Task.of(createTaskDto).withId(taskId)));
+        given(taskCache.invalidateAfterCommit(any())).willReturn(Mono.empty());
+
         taskService.createTask(createTaskDto)
                 .as(StepVerifier::create)
                 .assertNext(taskDto -> {
@@ -67,21 +82,58 @@ class TaskServiceTest {
                 })
                 .verifyComplete();
 
-        verify(taskRepository).findByTitle(createTaskDto.title());
-        verify(taskRepository).save(any());
+        verify(taskRepository).insertIfAbsent(createTaskDto.title(), createTaskDto.description(), createTaskDto.dueDate());
+        verify(taskCache).invalidateAfterCommit(any());
     }
 
     @Test
     @DisplayName("should not create task when title is duplicate")
     void createTask_ExistingTitle() {
 
-        given(taskRepository.findByTitle(any())).willReturn(Mono.just(mock()));
+        given(taskRepository.insertIfAbsent(any(), any(), any())).willReturn(Mono.empty());
         taskService.createTask(mock())
                 .as(StepVerifier::create)
                 .verifyError(TaskAlreadyExistException.class);
 
-        verify(taskRepository).findByTitle(any());
-        verify(taskRepository, times(0)).save(any());
+        verify(taskRepository).insertIfAbsent(any(), any(), any());
+        verify(taskCache, times(0)).invalidateAfterCommit(any());
+        assertThat(meterRegistry.get("task.service.errors")
+                .tags("operation", "createTask", "exception", "TaskAlreadyExistException")
+                .counter()
+                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("should create batch reporting conflicting titles")
+    void createTasks() {
+        final var existing = new CreateTaskDto("existing title", faker.text().text(100), null);
+        final var fresh = new CreateTaskDto("fresh title", faker.text().text(100), LocalDate.now().plusDays(2));
+        final var repeated = new CreateTaskDto("fresh title", faker.text().text(100), null);
+
+        given(taskRepository.findExistingTitles(any())).willReturn(Flux.just(existing.title()));
+        given(taskRepository.insertAll(any(), any(), any())).willAnswer(invocation -> {
+            String[] titles = invocation.getArgument(0);
+            assertThat(titles).containsExactly(fresh.title());
+            String[] dueDates = invocation.getArgument(2);
+            assertThat(dueDates).containsExactly(fresh.dueDate().toString());
+            return Flux.just(Task.of(fresh).withId(UUID.randomUUID()));
+        });
+        given(taskCache.invalidateAfterCommit(any())).willReturn(Mono.empty());
+
+        taskService.createTasks(List.of(existing, fresh, repeated))
+                .as(StepVerifier::create)
+                .assertNext(results -> {
+                    assertThat(results.size()).isEqualTo(3);
+                    assertThat(results.get(0)).isEqualTo(BatchTaskResultDto.conflict(0, existing.title()));
+                    assertThat(results.get(1).status()).isEqualTo(BatchTaskResultDto.Status.CREATED);
+                    assertThat(results.get(1).task().title()).isEqualTo(fresh.title());
+                    assertThat(results.get(2)).isEqualTo(BatchTaskResultDto.conflict(2, repeated.title()));
+                })
+                .verifyComplete();
+
+        verify(taskRepository).findExistingTitles(any());
+        verify(taskRepository).insertAll(any(), any(), any());
+        verify(taskCache).invalidateAfterCommit(any());
     }
     //</editor-fold>
 
@@ -95,20 +147,21 @@ class TaskServiceTest {
                 faker.text().text(1000),
                 LocalDate.now().plusDays(2)
         );
-        final var task = Task.of(createTaskDto).withId(taskId);
-        given(taskRepository.findById(taskId)).willReturn(Mono.just(task));
-        given(taskRepository.save(any())).willAnswer(invocation -> {
-            Task updatedTask = invocation.getArgument(0);
-            return Mono.just(updatedTask);
-        });
-
         final var updateTaskDto = new UpdateTaskDto(
                 faker.text().text(5, 100),
                 faker.text().text(1000),
                 LocalDate.now().plusDays(3)
         );
-
-        taskService.updateTask(taskId, updateTaskDto)
+        final var task = new Task(taskId, createTaskDto.title(), createTaskDto.description(),
+                createTaskDto.dueDate(), null, null, 1);
+        final var updatedTask = new Task(taskId, updateTaskDto.title(), updateTaskDto.description(),
+                updateTaskDto.dueDate(), null, null, 2);
+        given(taskRepository.updateIfVersion(taskId, 1, updateTaskDto.title(),
+                updateTaskDto.description(), updateTaskDto.dueDate()))
+                .willReturn(Flux.just(updatedTask, task));
+        given(taskCache.invalidateAfterCommit(any())).willReturn(Mono.empty());
+
+        taskService.updateTask(taskId, 1, updateTaskDto)
                 .as(StepVerifier::create)
                 .assertNext(taskDto -> {
 
@@ -125,11 +178,13 @@ class TaskServiceTest {
                             .isNotNull()
                             .isEqualTo(updateTaskDto.description())
                             .isNotEqualTo(createTaskDto.description());
+                    assertThat(taskDto.version()).isEqualTo(2);
                 })
                 .verifyComplete();
 
-        verify(taskRepository).findById(taskId);
-        verify(taskRepository).save(any());
+        verify(taskRepository).updateIfVersion(any(), any(), any(), any(), any());
+        verify(taskRepository, times(0)).existsById(Mockito.<UUID>any());
+        verify(taskCache).invalidateAfterCommit(List.of(updatedTask, task));
     }
 
     @Test
@@ -143,14 +198,36 @@ class TaskServiceTest {
                 LocalDate.now().plusDays(2)
         );
 
-        given(taskRepository.findById(taskId)).willReturn(Mono.empty());
+        given(taskRepository.updateIfVersion(any(), any(), any(), any(), any())).willReturn(Flux.empty());
+        given(taskRepository.existsById(taskId)).willReturn(Mono.just(false));
 
-        taskService.updateTask(taskId, updateTaskDto)
+        taskService.updateTask(taskId, null, updateTaskDto)
                 .as(StepVerifier::create)
                 .verifyError(TaskMissingException.class);
 
-        verify(taskRepository).findById(taskId);
-        verify(taskRepository, times(0)).save(any());
+        verify(taskRepository).existsById(taskId);
+        verify(taskCache, times(0)).invalidateAfterCommit(any());
+    }
+
+    @Test
+    @DisplayName("should not update task if its version changed")
+    void updateTask_StaleVersion() {
+
+        final var taskId = UUID.randomUUID();
+        final var updateTaskDto = new UpdateTaskDto(
+                faker.text().text(5, 100),
+                faker.text().text(1000),
+                LocalDate.now().plusDays(2)
+        );
+
+        given(taskRepository.updateIfVersion(any(), any(), any(), any(), any())).willReturn(Flux.empty());
+        given(taskRepository.existsById(taskId)).willReturn(Mono.just(true));
+
+        taskService.updateTask(taskId, 1, updateTaskDto)
+                .as(StepVerifier::create)
+                .verifyError(TaskVersionMismatchException.class);
+
+        verify(taskCache, times(0)).invalidateAfterCommit(any());
     }
     //</editor-fold>
 
@@ -161,36 +238,46 @@ class TaskServiceTest {
         final var taskId = UUID.randomUUID();
         final Task task = mock();
 
-        given(taskRepository.findById(taskId)).willReturn(Mono.just(task));
-
-        given(taskRepository.delete(task)).willAnswer(invocation -> {
-            Task toDeleteTask = invocation.getArgument(0);
+        given(taskRepository.deleteIfVersion(taskId, null)).willReturn(Mono.just(task));
+        given(taskCache.invalidateAfterCommit(any())).willReturn(Mono.empty());
 
-            return Mono.just(toDeleteTask);
-        });
-
-        taskService.deleteTask(taskId)
+        taskService.deleteTask(taskId, null)
                 .as(StepVerifier::create)
                 .assertNext(taskDto -> assertThat(taskDto).isNotNull())
                 .verifyComplete();
 
-        verify(taskRepository).findById(taskId);
-        verify(taskRepository).delete(task);
+        verify(taskRepository).deleteIfVersion(taskId, null);
+        verify(taskRepository, times(0)).existsById(Mockito.<UUID>any());
+        verify(taskCache).invalidateAfterCommit(any());
     }
 
     @Test
     @DisplayName("should not delete task if taskId is missing")
     void deleteTask_ErrorOnMissingTaskId() {
 
-        given(taskRepository.findById(Mockito.<UUID>any())).willReturn(Mono.empty());
+        given(taskRepository.deleteIfVersion(any(), any())).willReturn(Mono.empty());
+        given(taskRepository.existsById(Mockito.<UUID>any())).willReturn(Mono.just(false));
 
-        taskService.deleteTask(mock())
+        taskService.deleteTask(UUID.randomUUID(), 3)
                 .as(StepVerifier::create)
                 .verifyError(TaskMissingException.class);
 
-        verify(taskRepository).findById(Mockito.<UUID>any());
-        verify(taskRepository, times(0)).delete(any());
+        verify(taskRepository).existsById(Mockito.<UUID>any());
+        verify(taskCache, times(0)).invalidateAfterCommit(any());
+    }
+
+    @Test
+    @DisplayName("should not delete task if its version changed")
+    void deleteTask_StaleVersion() {
+
+        given(taskRepository.deleteIfVersion(any(), any())).willReturn(Mono.empty());
+        given(taskRepository.existsById(Mockito.<UUID>any())).willReturn(Mono.just(true));
+
+        taskService.deleteTask(UUID.randomUUID(), 3)
+                .as(StepVerifier::create)
+                .verifyError(TaskVersionMismatchException.class);
 
+        verify(taskCache, times(0)).invalidateAfterCommit(any());
     }
     //</editor-fold>
 
@@ -0,0 +1,182 @@
+package co.ke.ipsl.interview.taskmanagement.task;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskWriteProperties;
+import co.ke.ipsl.interview.taskmanagement.task.cache.TaskCache;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskMissingException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskWritesOverloadedException;
+import co.ke.ipsl.interview.taskmanagement.task.exception.TaskWritesStoppedException;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Denis Gitonga
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskWriteCoalescerTest {
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Mock
+    private TaskCache taskCache;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TaskWriteCoalescer taskWriteCoalescer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // lenient as writes rejected before reaching a batch use neither
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(taskCache.invalidateAfterCommit(any())).thenReturn(Mono.empty());
+
+        taskWriteCoalescer = new TaskWriteCoalescer(
+                new TaskWriteProperties(true, Duration.ofMillis(200), 3, 1, 8),
+                transactionalOperator, taskCache, meterRegistry);
+        taskWriteCoalescer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskWriteCoalescer.stop();
+    }
+
+    @Test
+    @DisplayName("should run concurrent writes in one transaction, each caller getting its own outcome")
+    void submit_SharesTransaction() throws Exception {
+        final var first = task("first");
+        final var second = task("second");
+
+        final var firstResult = taskWriteCoalescer.submit(() -> Mono.just(write(first))).toFuture();
+        final var missing = taskWriteCoalescer.submit(() -> Mono.error(new TaskMissingException())).toFuture();
+        final var secondResult = taskWriteCoalescer.submit(() -> Mono.just(write(second))).toFuture();
+
+        assertThat(firstResult.get(5, TimeUnit.SECONDS).title()).isEqualTo("first");
+        assertThat(secondResult.get(5, TimeUnit.SECONDS).title()).isEqualTo("second");
+        assertThatThrownBy(() -> missing.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TaskMissingException.class);
+
+        verify(transactionalOperator, times(1)).transactional(any(Mono.class));
+        verify(taskCache, times(1)).invalidateAfterCommit(List.of(first, second));
+        assertThat(meterRegistry.get("task.writes.batch.size").summary().max()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("should run writes one by one once a statement fails the batch")
+    void submit_FallsBackOnFailedStatement() throws Exception {
+        final var task = task("task");
+        final var attempts = new AtomicInteger();
+
+        final var succeeding = taskWriteCoalescer.submit(() -> Mono.just(write(task))).toFuture();
+        final var failing = taskWriteCoalescer.submit(() -> Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new DataIntegrityViolationException("constraint violated"));
+        })).toFuture();
+
+        assertThat(succeeding.get(5, TimeUnit.SECONDS).title()).isEqualTo("task");
+        assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("task.writes.batch.fallbacks").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("should run statements in the context of their caller")
+    void submit_CarriesCallerContext() throws Exception {
+        final var result = taskWriteCoalescer.submit(() -> Mono.deferContextual(context ->
+                        Mono.just(write(task(context.get("title"))))))
+                .contextWrite(Context.of("title", "from caller"))
+                .toFuture();
+
+        assertThat(result.get(5, TimeUnit.SECONDS).title()).isEqualTo("from caller");
+    }
+
+    @Test
+    @DisplayName("should reject writes once too many are waiting")
+    @SuppressWarnings("unchecked")
+    void submit_RejectsOverflow() {
+        given(transactionalOperator.transactional(any(Mono.class))).willReturn(Mono.never());
+        final var rejected = new AtomicInteger();
+
+        for (int index = 0; index < 50; index++) {
+            taskWriteCoalescer.submit(() -> Mono.just(write(task("queued"))))
+                    .subscribe(result -> {
+                    }, error -> {
+                        if (error instanceof TaskWritesOverloadedException) {
+                            rejected.incrementAndGet();
+                        }
+                    });
+        }
+
+        assertThat(rejected).hasPositiveValue();
+    }
+
+    @Test
+    @DisplayName("should fail waiting writes on stop and accept writes again once restarted")
+    @SuppressWarnings("unchecked")
+    void stop_FailsWaitingWrites() throws Exception {
+        given(transactionalOperator.transactional(any(Mono.class))).willReturn(Mono.never());
+        final var waiting = IntStream.range(0, 5)
+                .mapToObj(index -> taskWriteCoalescer.submit(() -> Mono.just(write(task("waiting")))).toFuture())
+                .toList();
+
+        taskWriteCoalescer.stop();
+
+        for (var write : waiting) {
+            assertThatThrownBy(() -> write.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(TaskWritesStoppedException.class);
+        }
+        taskWriteCoalescer.submit(() -> Mono.just(write(task("stopped"))))
+                .as(StepVerifier::create)
+                .verifyError(TaskWritesStoppedException.class);
+
+        given(transactionalOperator.transactional(any(Mono.class))).willAnswer(invocation -> invocation.getArgument(0));
+        taskWriteCoalescer.start();
+
+        assertThat(taskWriteCoalescer.submit(() -> Mono.just(write(task("restarted"))))
+                .toFuture()
+                .get(5, TimeUnit.SECONDS)
+                .title()).isEqualTo("restarted");
+    }
+
+    private static Task task(String title) {
+        return new Task(UUID.randomUUID(), title, "a description", LocalDate.now().plusDays(1), null, null, 1);
+    }
+
+    private static TaskWriteCoalescer.Write write(Task task) {
+        return new TaskWriteCoalescer.Write(TaskDto.of(task), List.of(task));
+    }
+}
@@ -0,0 +1,90 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.task.dto.CursorPage;
+import co.ke.ipsl.interview.taskmanagement.task.dto.TaskDto;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Denis Gitonga
+ */
+class TaskCacheCodecTest {
+
+    private final GenericJackson2JsonRedisSerializer json =
+            new GenericJackson2JsonRedisSerializer(JsonMapper.builder().findAndAddModules().build());
+
+    private final TaskCacheCodec codec = new TaskCacheCodec(json);
+
+    private final List<TaskDto> tasks = List.of(
+            new TaskDto(UUID.randomUUID(), "title", "déscription ✓", LocalDate.of(2024, 3, 20), 3),
+            new TaskDto(UUID.randomUUID(), "no due date", null, null, null));
+
+    @Test
+    @DisplayName("should round trip task pages and slices with their pageable")
+    void pageAndSlice() {
+        final var pageable = PageRequest.of(2, 2, Sort.by(Sort.Order.desc("dueDate"), Sort.Order.asc("id")));
+        final var page = new PageImpl<>(tasks, pageable, 42);
+        final var slice = new SliceImpl<>(tasks, pageable, true);
+
+        assertThat(codec.deserialize(codec.serialize(page)))
+                .isEqualTo(page)
+                .extracting(value -> ((PageImpl<?>) value).getPageable())
+                .isEqualTo(pageable);
+        assertThat(codec.deserialize(codec.serialize(slice)))
+                .isInstanceOfSatisfying(SliceImpl.class, value -> {
+                    assertThat(value.getContent()).isEqualTo(tasks);
+                    assertThat(value.getPageable()).isEqualTo(pageable);
+                    assertThat(value.hasNext()).isTrue();
+                });
+    }
+
+    @Test
+    @DisplayName("should round trip cursor pages and counts")
+    void cursorPageAndCount() {
+        final var page = new CursorPage<>(tasks, 2, "next");
+
+        assertThat(codec.deserialize(codec.serialize(page))).isEqualTo(page);
+        assertThat(codec.deserialize(codec.serialize(new CursorPage<>(List.of(), 20, null))))
+                .isEqualTo(new CursorPage<>(List.of(), 20, null));
+        assertThat(codec.deserialize(codec.serialize(42L))).isEqualTo(42L);
+    }
+
+    @Test
+    @DisplayName("should be smaller than json")
+    void size() {
+        final var page = new PageImpl<>(tasks, PageRequest.of(0, 20), 2);
+
+        assertThat(codec.serialize(page)).hasSizeLessThan(json.serialize(page).length / 2);
+    }
+
+    @Test
+    @DisplayName("should fall back to json for other values and legacy entries")
+    void fallback() {
+        final var value = Map.of("key", "value");
+
+        assertThat(codec.deserialize(codec.serialize(value))).isEqualTo(value);
+        assertThat(codec.deserialize(json.serialize(value))).isEqualTo(value);
+    }
+
+    @Test
+    @DisplayName("should read entries of an unknown schema version as a miss")
+    void unknownVersion() {
+        final var bytes = codec.serialize(42L);
+        bytes[1] = TaskCacheCodec.VERSION + 1;
+
+        assertThat(codec.deserialize(bytes)).isNull();
+    }
+}
@@ -0,0 +1,111 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.database.ReadRouting;
+import co.ke.ipsl.interview.taskmanagement.database.ReplicaLag;
+import co.ke.ipsl.interview.taskmanagement.database.RoutingConnectionFactory;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * @author Denis Gitonga
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskCacheTest {
+
+    @Mock
+    private TaskCacheGenerations generations;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Mock
+    private TaskCacheWarmer warmer;
+
+    @Mock
+    private ReplicaLag replicaLag;
+
+    @Mock
+    private ConnectionFactory primary;
+
+    @Mock
+    private ConnectionFactory replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private TaskCache taskCache;
+
+    @BeforeEach
+    void setup() {
+        taskCache = new TaskCache(new ConcurrentMapCacheManager(TaskCache.TASKS), generations, invalidationBus, warmer, replicaLag);
+    }
+
+    @Test
+    @DisplayName("should load a missing listing once for concurrent requests")
+    void get_singleFlight() {
+        given(generations.namespace(any())).willReturn(Mono.just("all=0"));
+        given(replicaLag.routing()).willReturn(Mono.just(ReadRouting.readOnly()));
+        final var loads = new AtomicInteger();
+        final var filter = new FilterTaskDto(null, null, null, null, null, null, null);
+
+        Flux.range(0, 20)
+                .flatMap(request -> taskCache.get(TaskCache.TASKS, filter, "page",
+                        () -> Mono.delay(Duration.ofMillis(100))
+                                .map(tick -> "page-" + loads.incrementAndGet())))
+                .as(StepVerifier::create)
+                .expectNextCount(20)
+                .verifyComplete();
+
+        assertThat(loads).hasValue(1);
+
+        taskCache.get(TaskCache.TASKS, filter, "page", () -> Mono.just("reloaded"))
+                .as(StepVerifier::create)
+                .expectNext("page-1")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should load a missing listing from the replica only once it caught up")
+    void get_replica() {
+        final var routing = new RoutingConnectionFactory(primary, replica, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        given(generations.namespace(any())).willReturn(Mono.just("all=0"), Mono.just("all=1"));
+        given(replicaLag.routing()).willReturn(Mono.just(ReadRouting.readOnly()), Mono.just(ReadRouting.pinToPrimary()));
+        given(replica.create()).willAnswer(invocation -> Mono.just(replicaConnection));
+        given(primary.create()).willAnswer(invocation -> Mono.just(primaryConnection));
+        final var filter = new FilterTaskDto(null, null, null, null, null, null, null);
+        final Supplier<Mono<Connection>> loader = () -> Mono.from(routing.create());
+
+        taskCache.get(TaskCache.TASKS, filter, "page", loader)
+                .as(StepVerifier::create)
+                .expectNext(replicaConnection)
+                .verifyComplete();
+
+        taskCache.get(TaskCache.TASKS, filter, "page", loader)
+                .as(StepVerifier::create)
+                .expectNext(primaryConnection)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,117 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import co.ke.ipsl.interview.taskmanagement.configuration.TaskCacheProperties;
+import co.ke.ipsl.interview.taskmanagement.task.dto.FilterTaskDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * @author Denis Gitonga
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskCacheWarmerTest {
+
+    private final FilterTaskDto filter = new FilterTaskDto(null, null, null, null, null, null, null);
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(TaskCache.TASKS);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private TaskCacheGenerations generations;
+
+    private TaskCacheWarmer warmer;
+
+    @BeforeEach
+    void setUp() {
+        warmer = new TaskCacheWarmer(cacheManager, generations, new TaskCacheProperties(
+                Duration.ofMinutes(5),
+                Duration.ofSeconds(1),
+                new TaskCacheProperties.Near(true, DataSize.ofMegabytes(64)),
+                TaskCacheProperties.Codec.BINARY,
+                new TaskCacheProperties.Warming(true, 100, 1, Duration.ofSeconds(30), Duration.ofMillis(100), 2, 7,
+                        Duration.ofSeconds(30))), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("should recompute a hot listing once invalidated, under its new generation")
+    void refreshDue_Invalidated() {
+        final var loads = new AtomicInteger();
+        given(generations.buckets(filter)).willReturn(List.of(TaskCacheGenerations.ALL));
+        given(generations.namespace(any())).willReturn(Mono.just("all=1"));
+
+        warmer.track(TaskCache.TASKS, filter, "page", () -> Mono.fromSupplier(() -> "page-" + loads.incrementAndGet()));
+        warmer.rank();
+        warmer.invalidated(List.of(TaskCacheGenerations.ALL));
+        warmer.refreshDue().block(Duration.ofSeconds(5));
+
+        assertThat(cacheManager.getCache(TaskCache.TASKS).get(TaskCache.key("all=1", filter, "page")).get())
+                .isEqualTo("page-1");
+        assertThat(meterRegistry.get("task.cache.warm.refreshes").tag("reason", "invalidated").counter().count())
+                .isEqualTo(1.0);
+
+        // refreshed once, not again until invalidated or close to expiring
+        warmer.refreshDue().block(Duration.ofSeconds(5));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should not retry a failed refresh before the next one is due")
+    void refreshDue_Failed() throws InterruptedException {
+        final var loads = new AtomicInteger();
+        given(generations.namespace(any())).willReturn(Mono.just("all=1"));
+        // refreshed half way through a 200ms TTL
+        final var expiring = new TaskCacheWarmer(cacheManager, generations, new TaskCacheProperties(
+                Duration.ofMillis(200),
+                Duration.ofSeconds(1),
+                new TaskCacheProperties.Near(true, DataSize.ofMegabytes(64)),
+                TaskCacheProperties.Codec.BINARY,
+                new TaskCacheProperties.Warming(true, 100, 1, Duration.ofSeconds(30), Duration.ofMillis(100), 2, 7,
+                        Duration.ofSeconds(30))), new SimpleMeterRegistry());
+
+        expiring.track(TaskCache.TASKS, filter, "page", () -> Mono.defer(() -> {
+            loads.incrementAndGet();
+            return Mono.error(new IllegalStateException("database down"));
+        }));
+        expiring.rank();
+        Thread.sleep(150);
+
+        expiring.refreshDue().block(Duration.ofSeconds(5));
+        expiring.refreshDue().block(Duration.ofSeconds(5));
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should only keep the most requested listings warm, counting their hits")
+    void rank_MostRequested() {
+        final var hot = warmer.track(TaskCache.TASKS, filter, "first page", () -> Mono.just("first"));
+        warmer.track(TaskCache.TASKS, filter, "first page", () -> Mono.just("first"));
+        final var cold = warmer.track(TaskCache.TASKS, filter, "last page", () -> Mono.just("last"));
+        warmer.rank();
+
+        warmer.served(hot, false);
+        warmer.served(hot, true);
+        warmer.served(cold, false);
+
+        assertThat(meterRegistry.get("task.cache.warm.keys").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("task.cache.warm.requests").tag("result", "hit").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("task.cache.warm.requests").tag("result", "miss").counter().count()).isEqualTo(1.0);
+    }
+}
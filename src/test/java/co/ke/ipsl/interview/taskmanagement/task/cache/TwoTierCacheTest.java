@@ -0,0 +1,94 @@
+package co.ke.ipsl.interview.taskmanagement.task.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Denis Gitonga
+ */
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheTest {
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private ConcurrentMapCache remote;
+
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setup() {
+        remote = new ConcurrentMapCache("tasks", false);
+        cache = new TwoTierCache(remote, 1024 * 1024, Duration.ofMinutes(5), invalidationBus);
+    }
+
+    @Test
+    @DisplayName("should serve repeated reads from the near tier")
+    void retrieve_nearHit() {
+        final var loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(cache.retrieve("key", () -> CompletableFuture.completedFuture("value-" + loads.incrementAndGet())).join())
+                    .isEqualTo("value-1");
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.remoteMisses()).isEqualTo(1);
+        assertThat(cache.remoteHits()).isZero();
+        assertThat(cache.nearHits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should fill the near tier from the remote tier")
+    void retrieve_remoteHit() {
+        remote.put("key", "value");
+
+        assertThat(cache.retrieve("key", () -> CompletableFuture.completedFuture("loaded")).join())
+                .isEqualTo("value");
+        remote.evict("key");
+
+        assertThat(cache.get("key", String.class)).isEqualTo("value");
+        assertThat(cache.remoteHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should broadcast evictions to other nodes")
+    void evict() {
+        given(invalidationBus.publish(any())).willReturn(Mono.empty());
+        cache.retrieve("key", () -> CompletableFuture.completedFuture("value")).join();
+
+        cache.evict("key");
+
+        assertThat(cache.get("key")).isNull();
+        verify(invalidationBus).publish(new CacheInvalidation("tasks", CacheInvalidation.Type.EVICT, List.of("key"), null));
+    }
+
+    @Test
+    @DisplayName("should drop near entries on remote invalidation")
+    void evictNear() {
+        cache.retrieve("all=1::a", () -> CompletableFuture.completedFuture("value")).join();
+        cache.retrieve("due:2024-03-20=1::b", () -> CompletableFuture.completedFuture("value")).join();
+
+        cache.evictNearIf(key -> TaskCacheGenerations.dependsOn(key, List.of("all")));
+
+        assertThat(cache.nearWeight()).isPositive();
+        assertThat(((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache()).asMap())
+                .containsOnlyKeys("due:2024-03-20=1::b");
+    }
+}
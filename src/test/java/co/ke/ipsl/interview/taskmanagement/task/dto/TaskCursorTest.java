@@ -0,0 +1,65 @@
+package co.ke.ipsl.interview.taskmanagement.task.dto;
+
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidCursorException;
+import co.ke.ipsl.interview.taskmanagement.task.model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Denis Gitonga
+ */
+class TaskCursorTest {
+
+    @Test
+    @DisplayName("should round trip cursor through its opaque token")
+    void encodeDecode() {
+        final var task = Task.of(new CreateTaskDto("title|with|pipes", "description", LocalDate.now()))
+                .withId(UUID.randomUUID());
+
+        final var cursor = TaskCursor.after(task, "title");
+
+        assertThat(TaskCursor.decode(cursor.encode(), "title")).isEqualTo(cursor);
+    }
+
+    @Test
+    @DisplayName("should round trip cursor with a null sort key")
+    void encodeDecode_nullValue() {
+        final var task = Task.of(new CreateTaskDto("a title", "description", null))
+                .withId(UUID.randomUUID());
+
+        final var cursor = TaskCursor.after(task, "dueDate");
+
+        assertThat(TaskCursor.decode(cursor.encode(), "dueDate"))
+                .isEqualTo(cursor)
+                .extracting(TaskCursor::value)
+                .isNull();
+    }
+
+    @Test
+    @DisplayName("should reject tampered or mismatched cursors")
+    void decode_invalid() {
+        final var cursor = new TaskCursor("dueDate", "2024-03-20", UUID.randomUUID()).encode();
+
+        assertThatThrownBy(() -> TaskCursor.decode("not-a-cursor", "dueDate"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> TaskCursor.decode(cursor, "title"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    @DisplayName("should only allow sorting by indexed keys")
+    void order() {
+        assertThat(TaskCursor.order(Sort.unsorted()).getProperty()).isEqualTo("id");
+        assertThat(TaskCursor.sort(TaskCursor.order(Sort.by("dueDate"))))
+                .containsExactly(Sort.Order.asc("dueDate"), Sort.Order.asc("id"));
+        assertThatThrownBy(() -> TaskCursor.order(Sort.by("description")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
@@ -0,0 +1,63 @@
+package co.ke.ipsl.interview.taskmanagement.task.dto;
+
+import co.ke.ipsl.interview.taskmanagement.task.exception.InvalidFieldsException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Denis Gitonga
+ */
+class TaskFieldsTest {
+
+    @Test
+    @DisplayName("should select only the requested columns, the id and sort keys")
+    void columns() {
+        final var fields = TaskFields.of("title, dueDate");
+
+        assertThat(fields.all()).isFalse();
+        assertThat(fields.columns()).containsExactlyInAnyOrder("id", "title", "due_date");
+        assertThat(fields.columns("createdAt")).containsExactlyInAnyOrder("id", "title", "due_date", "created_date");
+        assertThat(TaskFields.of(null)).isEqualTo(TaskFields.ALL);
+        assertThat(TaskFields.of("dueDate,title")).hasToString(fields.toString());
+    }
+
+    @Test
+    @DisplayName("should clear the properties not requested")
+    void project() {
+        final var task = new TaskDto(UUID.randomUUID(), "title", "description", LocalDate.now(), 1);
+
+        assertThat(TaskFields.of("dueDate").project(task))
+                .isEqualTo(new TaskDto(task.id(), null, null, task.dueDate(), null));
+        assertThat(TaskFields.ALL.project(task)).isSameAs(task);
+    }
+
+    @Test
+    @DisplayName("should omit null properties from sparse listings only")
+    void sparse() {
+        final var objectMapper = new ObjectMapper().findAndRegisterModules();
+        final var task = new TaskDto(UUID.randomUUID(), "title", null, null, 1);
+
+        final JsonNode full = objectMapper.valueToTree(task);
+        final JsonNode sparse = TaskFields.sparse(objectMapper).valueToTree(task);
+
+        assertThat(full.has("dueDate")).isTrue();
+        assertThat(full.get("dueDate").isNull()).isTrue();
+        assertThat(sparse.has("dueDate")).isFalse();
+        assertThat(sparse.get("title").asText()).isEqualTo("title");
+    }
+
+    @Test
+    @DisplayName("should reject unknown fields")
+    void invalid() {
+        assertThatThrownBy(() -> TaskFields.of("title,createdAt"))
+                .isInstanceOf(InvalidFieldsException.class);
+    }
+}